@@ -1,7 +1,10 @@
 package com.koobyte;
 
+import com.koobyte.webflux.common.VirtualThreads;
+
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
+import javax.servlet.annotation.WebInitParam;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -9,28 +12,60 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * 耗时操作的执行器由初始化参数{@code async.executor}选择：common（默认）为CompletableFuture的默认执行器，即ForkJoinPool的
+ * 公共池（线程数为CPU核数减1，阻塞的任务很快就会把它占满），公共池的并行度为1时每个任务新建一个线程；virtual为每个请求
+ * 一个虚拟线程，需要JDK 21，低版本JDK初始化失败。部署时可以在web.xml的servlet中用同名的init-param覆盖注解中的值。
+ * <p>
  * Created by sun on 2021/6/27.
  *
  * @author sunfuchang03@126.com
  * @since 1.0
  */
 // asyncSupported: 开启异步支持
-@WebServlet(urlPatterns = "/async", asyncSupported = true)
+@WebServlet(urlPatterns = "/async", asyncSupported = true,
+		initParams = @WebInitParam(name = "async.executor", value = "common"))
 public class AsyncServlet extends HttpServlet {
 	//~ Static fields/constants/initializer
 
 
 	//~ Instance fields
 
+	// 为null时使用CompletableFuture的默认执行器
+	private Executor executor;
 
 	//~ Constructors
 
 
 	//~ Methods
 
+	@Override
+	public void init() throws ServletException {
+		String mode = getInitParameter("async.executor");
+		if (mode == null) {
+			mode = "common";
+		}
+		if ("virtual".equalsIgnoreCase(mode)) {
+			if (!VirtualThreads.isAvailable()) {
+				throw new ServletException("async.executor=virtual requires JDK 21 or later, running on "
+						+ System.getProperty("java.version"));
+			}
+			executor = VirtualThreads.newExecutor("async-virtual-");
+		} else if (!"common".equalsIgnoreCase(mode)) {
+			throw new ServletException("async.executor must be one of common, virtual: " + mode);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
 
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -42,7 +77,7 @@ public class AsyncServlet extends HttpServlet {
 		long start = System.currentTimeMillis();
 		// 开启异步
 		AsyncContext asyncContext = req.startAsync();
-		CompletableFuture.runAsync(() -> {
+		Runnable task = () -> {
 			// 模拟耗时操作
 			try {
 				TimeUnit.SECONDS.sleep(3);
@@ -52,7 +87,7 @@ public class AsyncServlet extends HttpServlet {
 			// 3秒后再输出
 			PrintWriter writer = null;
 			try {
-				// 执行线程：ForkJoinPool.commonPool-worker-1
+				// 执行线程：ForkJoinPool.commonPool-worker-1，使用虚拟线程时为async-virtual-0等
 				System.out.println("执行线程：" + Thread.currentThread().getName());
 				writer = asyncContext.getResponse().getWriter();
 				writer.write("Hello Async Servlet!\n");
@@ -62,7 +97,12 @@ public class AsyncServlet extends HttpServlet {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
-		});
+		};
+		if (executor == null) {
+			CompletableFuture.runAsync(task);
+		} else {
+			CompletableFuture.runAsync(task, executor);
+		}
 		System.out.println(Thread.currentThread().getName() + ", 耗时：" + (System.currentTimeMillis() - start) + " ms");
 		// 后台记录耗时时间
 		// 页面仍然是等待3秒后再输出，但是耗时时间很短
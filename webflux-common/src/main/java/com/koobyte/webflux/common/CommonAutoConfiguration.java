@@ -0,0 +1,36 @@
+package com.koobyte.webflux.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 各个WebFlux应用共用的组件，依赖webflux-common即可通过META-INF/spring.factories生效，应用中定义了同类型的bean时不再创建。
+ * <p>
+ * 共用的类都不加@Component，应用的组件扫描（包括扫描com.koobyte的webflux-mysql）不会重复注册；自动配置类本身由
+ * {@code @SpringBootApplication}的AutoConfigurationExcludeFilter排除在扫描之外。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class CommonAutoConfiguration {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	@ConditionalOnMissingBean
+	public EventStreams eventStreams() {
+		return new EventStreams();
+	}
+}
@@ -0,0 +1,63 @@
+package com.koobyte.webflux.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 请求的截止时间：注册{@link RequestDeadlineFilter}，并把截止时间传递给出站调用：通过Spring Boot的WebClient.Builder创建的
+ * WebClient按剩余时间设置超时，并用同一个请求头把剩余的毫秒数告诉下游服务，下游可以据此提前放弃。Repository的查询见
+ * {@link RepositoryDeadlineConfig}。
+ * <p>
+ * 依赖webflux-common的应用通过META-INF/spring.factories自动生效。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class DeadlineConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	@ConditionalOnMissingBean
+	public RequestDeadlineFilter requestDeadlineFilter() {
+		return new RequestDeadlineFilter();
+	}
+
+	@Bean
+	public WebClientCustomizer deadlineWebClientCustomizer(@Value("${deadline.header:X-Request-Timeout}") String header) {
+		return builder -> builder.filter(deadlineFilter(header));
+	}
+
+	// 超时只覆盖到收到响应头，读取响应体受整个请求的截止时间限制
+	private static ExchangeFilterFunction deadlineFilter(String header) {
+		return (request, next) -> Mono.deferContextual(context -> {
+			Duration remaining = Deadlines.remaining(context);
+			if (remaining == null) {
+				return next.exchange(request);
+			}
+			ClientRequest withDeadline = ClientRequest.from(request)
+					.headers(headers -> headers.set(header, String.valueOf(Math.max(0, remaining.toMillis()))))
+					.build();
+			return Deadlines.apply(next.exchange(withDeadline));
+		});
+	}
+}
@@ -0,0 +1,83 @@
+package com.koobyte.webflux.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求的截止时间：{@link RequestDeadlineFilter}把截止时间（System.nanoTime()的绝对值）放入Reactor Context，下游的数据库查询、
+ * WebClient调用等通过{@link #apply(Mono)}、{@link #apply(Flux)}按剩余时间设置超时，到期后取消上游并以
+ * {@link DeadlineExceededException}（504）结束；调用时已经到期的直接失败，不再发起注定超时的查询。Context中没有截止时间时不做处理。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public final class Deadlines {
+	//~ Static fields/constants/initializer
+
+	/**
+	 * Context中截止时间的key，值为System.nanoTime()的绝对值。
+	 */
+	public static final String KEY = Deadlines.class.getName();
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+	private Deadlines() {
+	}
+
+	//~ Methods
+
+	/**
+	 * 剩余时间，没有截止时间时返回null，已经到期时返回0或负数。
+	 */
+	public static Duration remaining(ContextView context) {
+		Long deadline = context.getOrDefault(KEY, null);
+		return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+	}
+
+	public static <T> Mono<T> apply(Mono<T> source) {
+		return Mono.deferContextual(context -> {
+			Duration remaining = remaining(context);
+			if (remaining == null) {
+				return source;
+			}
+			if (remaining.isNegative() || remaining.isZero()) {
+				return Mono.error(new DeadlineExceededException());
+			}
+			return source.timeout(remaining, Mono.error(DeadlineExceededException::new));
+		});
+	}
+
+	// Flux的timeout是每个元素之间的超时，这里要的是整体的截止时间，用一个定时器取消上游，再根据定时器是否触发决定以错误结束
+	public static <T> Flux<T> apply(Flux<T> source) {
+		return Flux.deferContextual(context -> {
+			Duration remaining = remaining(context);
+			if (remaining == null) {
+				return source;
+			}
+			if (remaining.isNegative() || remaining.isZero()) {
+				return Flux.error(new DeadlineExceededException());
+			}
+			AtomicBoolean expired = new AtomicBoolean();
+			return source.takeUntilOther(Mono.delay(remaining).doOnNext(tick -> expired.set(true)))
+					.concatWith(Mono.defer(() -> expired.get() ? Mono.error(new DeadlineExceededException()) : Mono.empty()));
+		});
+	}
+
+	// 请求的截止时间已到
+	public static class DeadlineExceededException extends ResponseStatusException {
+		public DeadlineExceededException() {
+			super(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded");
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package com.koobyte.webflux.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.unit.DataSize;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * text/event-stream接口的公共处理：
+ * <ul>
+ * <li>心跳：每隔{@code streaming.heartbeat}，连接上没有待写出的事件时发送一行注释，避免空闲的代理、负载均衡断开连接</li>
+ * <li>有界缓冲：{@link #stream}为每个连接维护已经从上游取出、还没有写出的事件，不超过{@code streaming.buffer.max-events}个和
+ * {@code streaming.buffer.max-bytes}字节，到达上限后不再向上游请求，慢的客户端通过背压让数据库游标等上游变慢</li>
+ * <li>慢消费者：进程内的变更这样的热源不能变慢，用{@link #bounded}在每个订阅者前面加有界队列，满了之后按{@code streaming.overflow}
+ * 合并（conflate：同一个key只保留最新的事件，没有可以合并的就丢弃最旧的）或者驱逐（evict：结束这个订阅，客户端收到evicted事件后重连）</li>
+ * </ul>
+ * 事件的数据放入缓冲之前就用应用的ObjectMapper编码成JSON字符串，字节数按字符数估算；字符串数据写出时不会再次编码。
+ * <p>
+ * 指标都带stream标签：sse.streams.active当前的连接数，sse.events.dropped合并或驱逐丢弃的事件数（reason标签），
+ * sse.streams.evicted被驱逐的订阅数。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class EventStreams {
+	//~ Static fields/constants/initializer
+
+	private static final ServerSentEvent<String> HEARTBEAT = ServerSentEvent.<String>builder().comment("heartbeat").build();
+
+	// 驱逐后发给客户端的最后一个事件
+	private static final ServerSentEvent<String> EVICTED = ServerSentEvent.<String>builder()
+			.event("evicted")
+			.data("slow consumer")
+			.build();
+
+	//~ Instance fields
+
+	@Value("${streaming.heartbeat:15s}")
+	private Duration heartbeat;
+
+	@Value("${streaming.buffer.max-events:256}")
+	private int maxEvents;
+
+	@Value("${streaming.buffer.max-bytes:1MB}")
+	private DataSize maxBytes;
+
+	@Value("${streaming.overflow:conflate}")
+	private Overflow overflow;
+
+	@Resource
+	private ObjectMapper objectMapper;
+
+	@Resource
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		if (overflow == Overflow.BACKPRESSURE) {
+			throw new IllegalArgumentException("streaming.overflow must be one of conflate, evict: " + overflow);
+		}
+	}
+
+	/**
+	 * 写出到一个连接的事件流，加上心跳和有界缓冲；上游被{@link #bounded}驱逐时先发送evicted事件再结束。
+	 *
+	 * @param name   指标的stream标签
+	 * @param events 事件，数据不是字符串时编码成JSON
+	 */
+	public <T> Flux<ServerSentEvent<String>> stream(String name, Flux<ServerSentEvent<T>> events) {
+		AtomicInteger connections = active.computeIfAbsent(name,
+				key -> meterRegistry.gauge("sse.streams.active", Tags.of("stream", key), new AtomicInteger()));
+		Flux<ServerSentEvent<String>> encoded = events.map(this::encode)
+				.onErrorResume(SlowConsumerException.class, e -> Mono.just(EVICTED));
+		return Flux.create(sink -> {
+			BoundedQueue<ServerSentEvent<String>> queue = new BoundedQueue<>(name, sink, Overflow.BACKPRESSURE,
+					maxEvents, maxBytes.toBytes(), EventStreams::size, null);
+			Disposable ticker = heartbeat.isZero()
+					? null
+					: Flux.interval(heartbeat).subscribe(tick -> queue.heartbeat(HEARTBEAT));
+			connections.incrementAndGet();
+			sink.onRequest(n -> queue.drain());
+			sink.onDispose(() -> {
+				connections.decrementAndGet();
+				if (ticker != null) {
+					ticker.dispose();
+				}
+				queue.cancel();
+			});
+			encoded.subscribe(queue);
+		}, FluxSink.OverflowStrategy.ERROR);
+	}
+
+	/**
+	 * 在不能变慢的热源和一个订阅者之间加有界队列，订阅者跟不上时按{@code streaming.overflow}合并或驱逐，丢弃的事件交给
+	 * {@link Flux#doOnDiscard}。驱逐时以{@link SlowConsumerException}结束，经过{@link #stream}时转换成evicted事件。
+	 *
+	 * @param name     指标的stream标签
+	 * @param source   热源
+	 * @param capacity 队列的最大事件数
+	 * @param key      合并时的key，队列满了之后同一个key只保留最新的事件
+	 */
+	public <T> Flux<T> bounded(String name, Flux<T> source, int capacity, Function<? super T, ?> key) {
+		return Flux.create(sink -> {
+			BoundedQueue<T> queue = new BoundedQueue<>(name, sink, overflow, capacity, Long.MAX_VALUE, value -> 0, key);
+			sink.onRequest(n -> queue.drain());
+			sink.onDispose(queue::cancel);
+			source.subscribe(queue);
+		}, FluxSink.OverflowStrategy.ERROR);
+	}
+
+	/**
+	 * 合并或驱逐丢弃的事件数（sse.events.dropped），不包括订阅者断开时缓冲区中剩下、同样交给doOnDiscard的事件。
+	 */
+	public long dropped(String name) {
+		return (long) meterRegistry.find("sse.events.dropped").tag("stream", name).counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+
+	private <T> ServerSentEvent<String> encode(ServerSentEvent<T> event) {
+		Object data = event.data();
+		String json;
+		try {
+			json = data == null || data instanceof String ? (String) data : objectMapper.writeValueAsString(data);
+		} catch (JsonProcessingException e) {
+			throw Exceptions.propagate(e);
+		}
+		return ServerSentEvent.<String>builder()
+				.id(event.id())
+				.event(event.event())
+				.retry(event.retry())
+				.comment(event.comment())
+				.data(json)
+				.build();
+	}
+
+	// 按字符数估算，加上字段名和换行
+	private static long size(ServerSentEvent<String> event) {
+		return length(event.data()) + length(event.id()) + length(event.event()) + length(event.comment()) + 16;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	// 热源满了之后的处理方式，BACKPRESSURE只用于连接的缓冲
+	public enum Overflow {
+		BACKPRESSURE, CONFLATE, EVICT
+	}
+
+	// 订阅者跟不上被驱逐
+	public static class SlowConsumerException extends RuntimeException {
+		public SlowConsumerException(String stream) {
+			super("Slow consumer evicted from stream " + stream);
+		}
+	}
+
+	// 队列中的一个事件
+	private static final class Entry<T> {
+		final Object key;
+		T value;
+		long size;
+
+		Entry(Object key, T value, long size) {
+			this.key = key;
+			this.value = value;
+			this.size = size;
+		}
+	}
+
+	// 一个订阅者的有界队列，上游的信号、下游的请求和心跳在不同的线程上，队列和状态在同步块中修改。写出由wip计数串行化：
+	// 只有把wip从0加到1的线程进入drain循环，其他线程只加计数，由它多循环一次处理；sink.next、结束信号、取消和向上游请求都在
+	// 同步块之外，bounded的输出作为stream的上游时不会嵌套持有两个锁，同步的上游（例如在请求的线程上阻塞读取）也不会占住锁
+	private final class BoundedQueue<T> implements CoreSubscriber<T> {
+		final String name;
+		final FluxSink<T> sink;
+		final Overflow overflow;
+		final int maxEvents;
+		final long maxBytes;
+		final ToLongFunction<? super T> sizer;
+		final Function<? super T, ?> key;
+		final ArrayDeque<Entry<T>> queue = new ArrayDeque<>();
+		// 合并时按key找到队列中最新的事件
+		final Map<Object, Entry<T>> latest;
+
+		Subscription upstream;
+		long bytes;
+		// 已经向上游请求、还没有收到的事件数
+		long outstanding;
+		// 收到的事件数和字节数，用来估算事件的平均大小
+		long received;
+		long receivedBytes;
+		boolean done;
+		boolean cancelled;
+		boolean terminated;
+		Throwable error;
+		// 等待写出的心跳
+		T beat;
+		final AtomicInteger wip = new AtomicInteger();
+
+		BoundedQueue(String name, FluxSink<T> sink, Overflow overflow, int maxEvents, long maxBytes,
+		             ToLongFunction<? super T> sizer, Function<? super T, ?> key) {
+			this.name = name;
+			this.sink = sink;
+			this.overflow = overflow;
+			this.maxEvents = maxEvents;
+			this.maxBytes = maxBytes;
+			this.sizer = sizer;
+			this.key = overflow == Overflow.CONFLATE ? key : null;
+			this.latest = this.key == null ? null : new HashMap<>();
+		}
+
+		@Override
+		public Context currentContext() {
+			return sink.currentContext();
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			synchronized (this) {
+				if (cancelled) {
+					subscription.cancel();
+					return;
+				}
+				upstream = subscription;
+			}
+			if (overflow == Overflow.BACKPRESSURE) {
+				drain();
+			} else {
+				subscription.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(T value) {
+			Subscription evicted = null;
+			synchronized (this) {
+				if (done || cancelled) {
+					Operators.onDiscard(value, sink.currentContext());
+					return;
+				}
+				if (outstanding > 0) {
+					outstanding--;
+				}
+				offer(value);
+				if (done) {
+					evicted = upstream;
+				}
+			}
+			if (evicted != null) {
+				evicted.cancel();
+			}
+			drain();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				done = true;
+				error = throwable;
+			}
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			synchronized (this) {
+				done = true;
+			}
+			drain();
+		}
+
+		void heartbeat(T value) {
+			synchronized (this) {
+				beat = value;
+			}
+			drain();
+		}
+
+		void cancel() {
+			Subscription subscription;
+			synchronized (this) {
+				cancelled = true;
+				subscription = upstream;
+				clear();
+			}
+			if (subscription != null) {
+				subscription.cancel();
+			}
+		}
+
+		void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				for (; ; ) {
+					T value;
+					synchronized (this) {
+						if (queue.isEmpty() || sink.requestedFromDownstream() <= 0) {
+							break;
+						}
+						value = poll().value;
+					}
+					sink.next(value);
+				}
+				T heartbeat;
+				boolean terminate;
+				Throwable failure;
+				long request;
+				Subscription subscription;
+				synchronized (this) {
+					// 只在没有待写出的事件时发送心跳，错过的心跳不补发
+					heartbeat = queue.isEmpty() && !done && !cancelled && sink.requestedFromDownstream() > 0 ? beat : null;
+					beat = null;
+					terminate = done && queue.isEmpty() && !terminated;
+					if (terminate) {
+						terminated = true;
+					}
+					failure = error;
+					request = credit();
+					subscription = upstream;
+				}
+				if (heartbeat != null) {
+					sink.next(heartbeat);
+				}
+				if (terminate) {
+					if (failure != null) {
+						sink.error(failure);
+					} else {
+						sink.complete();
+					}
+				}
+				if (request > 0) {
+					subscription.request(request);
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		// 缓冲中的事件和已请求未收到的事件合计低于上限的3/4时补充请求，避免每写出一个事件就请求一次；字节数的上限按已收到事件的
+		// 平均大小换算成事件数，还没有收到事件时只请求一个
+		private long credit() {
+			if (overflow != Overflow.BACKPRESSURE || upstream == null || done || cancelled || bytes >= maxBytes) {
+				return 0;
+			}
+			long pending = queue.size() + outstanding;
+			long limit = received == 0 ? 1 : Math.min(maxEvents, Math.max(1, maxBytes / Math.max(1, receivedBytes / received)));
+			long want = limit - pending;
+			if (want <= 0 || (pending > 0 && want < Math.max(1, limit / 4))) {
+				return 0;
+			}
+			outstanding += want;
+			return want;
+		}
+
+		private void offer(T value) {
+			long size = sizer.applyAsLong(value);
+			received++;
+			receivedBytes += size;
+			Object k = key == null ? null : key.apply(value);
+			if (overflow != Overflow.BACKPRESSURE && full(size)) {
+				if (overflow == Overflow.EVICT) {
+					evict(value);
+					return;
+				}
+				// 只在满了之后合并：用新的事件替换同一个key最新的那个，没有可以合并的再丢弃最旧的；没满时同一个key的事件都按顺序保留
+				Entry<T> existing = k == null ? null : latest.get(k);
+				if (existing != null) {
+					Operators.onDiscard(existing.value, sink.currentContext());
+					bytes += size - existing.size;
+					existing.value = value;
+					existing.size = size;
+					dropped("conflated", 1);
+					return;
+				}
+				while (full(size)) {
+					Operators.onDiscard(poll().value, sink.currentContext());
+					dropped("overflow", 1);
+				}
+			}
+			Entry<T> entry = new Entry<>(k, value, size);
+			queue.offer(entry);
+			bytes += size;
+			if (k != null) {
+				latest.put(k, entry);
+			}
+		}
+
+		private boolean full(long size) {
+			return !queue.isEmpty() && (queue.size() >= maxEvents || bytes + size > maxBytes);
+		}
+
+		private Entry<T> poll() {
+			Entry<T> entry = queue.poll();
+			bytes -= entry.size;
+			if (latest != null) {
+				latest.remove(entry.key, entry);
+			}
+			return entry;
+		}
+
+		// 丢弃缓冲中的事件，以SlowConsumerException结束，不再接收上游的事件；onNext出了同步块再取消上游
+		private void evict(T value) {
+			dropped("evicted", queue.size() + 1);
+			meterRegistry.counter("sse.streams.evicted", "stream", name).increment();
+			Operators.onDiscard(value, sink.currentContext());
+			clear();
+			done = true;
+			error = new SlowConsumerException(name);
+		}
+
+		private void clear() {
+			while (!queue.isEmpty()) {
+				Operators.onDiscard(poll().value, sink.currentContext());
+			}
+		}
+
+		private void dropped(String reason, int count) {
+			meterRegistry.counter("sse.events.dropped", "stream", name, "reason", reason).increment(count);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.koobyte.webflux.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Subscription;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 正在处理的请求数，注册为{@code http.server.requests.active}指标。
+ * <p>
+ * 在所有过滤器之前执行，从订阅开始计数，到完成、出错或取消（客户端断开）为止。计数器和两个回调是共用的，但doOnSubscribe和
+ * doFinally每个请求仍然各创建一个操作符和对应的订阅者。由{@link MetricsConfig}注册。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class InFlightRequestsFilter implements WebFilter, Ordered {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private MeterRegistry meterRegistry;
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final Consumer<Subscription> acquire = subscription -> active.incrementAndGet();
+	private final Consumer<SignalType> release = signal -> active.decrementAndGet();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		Gauge.builder("http.server.requests.active", active, AtomicInteger::get)
+				.description("Number of requests currently being handled")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		return chain.filter(exchange).doOnSubscribe(acquire).doFinally(release);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+}
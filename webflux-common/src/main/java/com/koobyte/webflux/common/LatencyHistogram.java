@@ -0,0 +1,97 @@
+package com.koobyte.webflux.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图，按微秒以2的幂划分桶，记录时不分配对象，百分位取所在桶的上界。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class LatencyHistogram {
+	//~ Static fields/constants/initializer
+
+	// 第i个桶统计[2^(i-1), 2^i)微秒，最后一个桶统计所有更大的值
+	private static final int BUCKETS = 40;
+
+	//~ Instance fields
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public void record(long nanos) {
+		long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		counts.incrementAndGet(bucket);
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	/**
+	 * 估算百分位，单位微秒，取所在桶的上界，但不超过记录到的最大值。
+	 *
+	 * @param percentile 0到1之间
+	 */
+	public long percentileMicros(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long max = TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+		long rank = (long) Math.ceil(percentile * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(1L << i, max);
+			}
+		}
+		return max;
+	}
+
+	public Map<String, Object> snapshot() {
+		long n = count();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("count", n);
+		map.put("meanMicros", n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / n));
+		map.put("p50Micros", percentileMicros(0.5));
+		map.put("p90Micros", percentileMicros(0.9));
+		map.put("p99Micros", percentileMicros(0.99));
+		map.put("p999Micros", percentileMicros(0.999));
+		map.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+		// 非空桶，key为桶的上界（微秒）
+		Map<Long, Long> buckets = new LinkedHashMap<>();
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = counts.get(i);
+			if (c > 0) {
+				buckets.put(1L << i, c);
+			}
+		}
+		map.put("buckets", buckets);
+		return map;
+	}
+}
@@ -0,0 +1,38 @@
+package com.koobyte.webflux.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求指标：注册{@link InFlightRequestsFilter}，只在有MeterRegistry（引入了actuator）的应用中生效。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnBean(MeterRegistry.class)
+public class MetricsConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	@ConditionalOnMissingBean
+	public InFlightRequestsFilter inFlightRequestsFilter() {
+		return new InFlightRequestsFilter();
+	}
+}
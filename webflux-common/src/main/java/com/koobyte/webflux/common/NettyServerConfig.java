@@ -0,0 +1,105 @@
+package com.koobyte.webflux.common;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * 内嵌Reactor Netty服务端的传输方式和事件循环，通过{@code netty.*}配置：
+ * <ul>
+ * <li>transport：auto（默认，原生epoll可用时使用，否则NIO）、epoll（不可用时启动失败）、nio</li>
+ * <li>selector-threads：接受连接的线程数，0表示与工作线程共用</li>
+ * <li>worker-threads：读写连接的事件循环线程数，0表示Reactor Netty的默认值（CPU核数，至少4个）</li>
+ * <li>tcp-no-delay：关闭Nagle算法，小响应不等待合并</li>
+ * <li>reuse-port：SO_REUSEPORT，多个进程可以监听同一个端口，由内核分配连接，只有epoll支持</li>
+ * </ul>
+ * 服务端使用单独的事件循环，线程名以reactor-http-server开头，WebClient仍然使用全局的事件循环。依赖webflux-common的应用通过
+ * META-INF/spring.factories自动生效。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class NettyServerConfig {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(NettyServerConfig.class);
+
+	//~ Instance fields
+
+	@Value("${netty.transport:auto}")
+	private Transport transport;
+
+	@Value("${netty.selector-threads:0}")
+	private int selectorThreads;
+
+	@Value("${netty.worker-threads:0}")
+	private int workerThreads;
+
+	@Value("${netty.tcp-no-delay:true}")
+	private boolean tcpNoDelay;
+
+	@Value("${netty.reuse-port:false}")
+	private boolean reusePort;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	// Web服务器先于其他bean停止，关闭上下文时再释放事件循环
+	@Bean(destroyMethod = "dispose")
+	public LoopResources serverLoopResources() {
+		int workers = workerThreads > 0 ? workerThreads : LoopResources.DEFAULT_IO_WORKER_COUNT;
+		return selectorThreads > 0
+				? LoopResources.create("reactor-http-server", selectorThreads, workers, true)
+				: LoopResources.create("reactor-http-server", workers, true);
+	}
+
+	@Bean
+	public NettyServerCustomizer nettyServerCustomizer(LoopResources serverLoopResources) {
+		boolean epoll = useEpoll();
+		log.info("Netty server transport: {}, selector threads: {}, worker threads: {}", epoll ? "epoll" : "nio",
+				selectorThreads > 0 ? selectorThreads : "shared", workerThreads > 0 ? workerThreads : LoopResources.DEFAULT_IO_WORKER_COUNT);
+		if (reusePort && !epoll) {
+			log.warn("netty.reuse-port is only supported by the epoll transport, ignored");
+		}
+		return server -> {
+			server = server.runOn(serverLoopResources, epoll)
+					.childOption(ChannelOption.TCP_NODELAY, tcpNoDelay);
+			if (reusePort && epoll) {
+				server = server.option(EpollChannelOption.SO_REUSEPORT, true);
+			}
+			return server;
+		};
+	}
+
+	private boolean useEpoll() {
+		switch (transport) {
+			case EPOLL:
+				if (!Epoll.isAvailable()) {
+					throw new IllegalStateException("netty.transport=epoll but native epoll is not available",
+							Epoll.unavailabilityCause());
+				}
+				return true;
+			case NIO:
+				return false;
+			default:
+				return Epoll.isAvailable();
+		}
+	}
+
+	// 传输方式
+	public enum Transport {
+		AUTO, EPOLL, NIO
+	}
+}
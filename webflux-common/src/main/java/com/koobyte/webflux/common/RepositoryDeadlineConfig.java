@@ -0,0 +1,63 @@
+package com.koobyte.webflux.common;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 把请求的截止时间（见{@link RequestDeadlineFilter}）传递给Repository：方法（包括自定义的片段）返回的Mono、Flux按剩余时间超时，
+ * 到期后取消查询，已经到期的不再发出查询。只在使用Spring Data的应用中生效，webflux-common不依赖Spring Data。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport")
+public class RepositoryDeadlineConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	// 在Spring Data的调用监听器之外，到期取消的查询在spring.data.repository.invocations中记录为CANCELED
+	@Bean
+	public static BeanPostProcessor deadlineRepositoryPostProcessor() {
+		MethodInterceptor interceptor = RepositoryDeadlineConfig::applyDeadline;
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				// Repository在初始化时创建，之前加上的定制才能生效
+				if (bean instanceof RepositoryFactoryBeanSupport) {
+					((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+							factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> proxyFactory.addAdvice(interceptor)));
+				}
+				return bean;
+			}
+		};
+	}
+
+	private static Object applyDeadline(MethodInvocation invocation) throws Throwable {
+		Object result = invocation.proceed();
+		if (result instanceof Mono) {
+			return Deadlines.apply((Mono<?>) result);
+		}
+		if (result instanceof Flux) {
+			return Deadlines.apply((Flux<?>) result);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,45 @@
+package com.koobyte.webflux.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Repository方法调用计时：用{@link RepositoryMetricsListener}代替Spring Boot默认的监听器。在Spring Boot的
+ * RepositoryMetricsAutoConfiguration之前注册，它的监听器是@ConditionalOnMissingBean的，不再创建，注册监听器的
+ * BeanPostProcessor使用这里的实例。只在使用Spring Data并引入了actuator的应用中生效。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@AutoConfigureBefore(name = "org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration")
+@ConditionalOnClass(name = {"org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener",
+		"org.springframework.data.repository.core.support.RepositoryMethodInvocationListener"})
+@ConditionalOnBean(MeterRegistry.class)
+public class RepositoryMetricsConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	public RepositoryMetricsListener repositoryMetricsListener(MeterRegistry registry,
+			@Value("${management.metrics.data.repository.metric-name:spring.data.repository.invocations}") String metricName) {
+		return new RepositoryMetricsListener(registry, metricName);
+	}
+}
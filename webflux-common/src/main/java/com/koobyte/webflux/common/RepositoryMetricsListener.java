@@ -0,0 +1,123 @@
+package com.koobyte.webflux.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository方法调用计时，替换Spring Boot默认的监听器（由它的BeanPostProcessor注册到各个Repository），指标名不变，
+ * 默认为{@code spring.data.repository.invocations}，标签为repository、method、outcome（SUCCESS、ERROR、CANCELED）和exception。
+ * <p>
+ * 响应式方法的耗时是从调用到Publisher结束。默认的实现每次调用都要创建标签和Timer.Builder再去注册表中查找，这里按
+ * Repository和方法缓存Timer，成功和取消时不再创建标签和Timer，只有出错时才按异常类型查找。由{@link RepositoryMetricsConfig}
+ * 注册，只在使用Spring Data的应用中生效。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class RepositoryMetricsListener extends MetricsRepositoryMethodInvocationListener {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final MeterRegistry registry;
+	private final String metricName;
+
+	// Repository接口 -> 方法 -> Timer，CrudRepository等基础接口的方法被多个Repository共用，需要按接口区分
+	private final Map<Class<?>, Map<Method, MethodTimers>> timers = new ConcurrentHashMap<>();
+
+	//~ Constructors
+
+	public RepositoryMetricsListener(MeterRegistry registry, String metricName) {
+		super(registry, new DefaultRepositoryTagsProvider(), metricName, AutoTimer.ENABLED);
+		this.registry = registry;
+		this.metricName = metricName;
+	}
+
+	//~ Methods
+
+	@Override
+	public void afterInvocation(RepositoryMethodInvocationListener.RepositoryMethodInvocation invocation) {
+		long nanos = invocation.getDuration(TimeUnit.NANOSECONDS);
+		MethodTimers methodTimers = timers(invocation.getRepositoryInterface(), invocation.getMethod());
+		switch (invocation.getResult().getState()) {
+			case SUCCESS:
+				methodTimers.success().record(nanos, TimeUnit.NANOSECONDS);
+				break;
+			case CANCELED:
+				methodTimers.canceled().record(nanos, TimeUnit.NANOSECONDS);
+				break;
+			default:
+				Throwable error = invocation.getResult().getError();
+				methodTimers.error(error == null ? Throwable.class : error.getClass()).record(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private MethodTimers timers(Class<?> repository, Method method) {
+		Map<Method, MethodTimers> methods = timers.get(repository);
+		if (methods == null) {
+			methods = timers.computeIfAbsent(repository, key -> new ConcurrentHashMap<>());
+		}
+		MethodTimers methodTimers = methods.get(method);
+		if (methodTimers == null) {
+			methodTimers = methods.computeIfAbsent(method, key -> new MethodTimers(repository, method));
+		}
+		return methodTimers;
+	}
+
+	// 一个Repository方法各种结果的Timer，第一次出现该结果时才注册，没有出现过的结果不会出现在抓取的数据中
+	private final class MethodTimers {
+		final String repository;
+		final String method;
+		// 并发注册时注册表返回同一个Timer
+		volatile Timer success;
+		volatile Timer canceled;
+		final Map<Class<?>, Timer> errors = new ConcurrentHashMap<>();
+
+		MethodTimers(Class<?> repository, Method method) {
+			this.repository = repository.getSimpleName();
+			this.method = method.getName();
+		}
+
+		Timer success() {
+			Timer timer = success;
+			if (timer == null) {
+				success = timer = timer("SUCCESS", "None");
+			}
+			return timer;
+		}
+
+		Timer canceled() {
+			Timer timer = canceled;
+			if (timer == null) {
+				canceled = timer = timer("CANCELED", "None");
+			}
+			return timer;
+		}
+
+		Timer error(Class<?> exception) {
+			return errors.computeIfAbsent(exception, key -> timer("ERROR", key.getSimpleName()));
+		}
+
+		Timer timer(String outcome, String exception) {
+			return Timer.builder(metricName)
+					.description("Duration of repository invocations")
+					.tag("repository", repository)
+					.tag("method", method)
+					.tag("outcome", outcome)
+					.tag("exception", exception)
+					.register(registry);
+		}
+	}
+}
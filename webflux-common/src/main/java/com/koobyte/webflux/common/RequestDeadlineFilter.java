@@ -0,0 +1,130 @@
+package com.koobyte.webflux.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 为每个请求设置截止时间：按{@code deadline.routes}中最具体的路径模式取默认的超时时间，没有匹配的用{@code deadline.default}，
+ * 0表示不限制（SSE、文件下载等长连接）；请求头{@code deadline.header}（默认X-Request-Timeout，毫秒数或者2s这样的格式）
+ * 比默认值短时以请求头为准，调用方已经放弃的请求不需要再处理下去。
+ * <p>
+ * 截止时间放入Reactor Context供{@link Deadlines}使用，整个请求的处理也按截止时间超时，到期后取消处理并返回504；响应已经开始
+ * 写出时只能断开连接。在Spring Boot的请求指标之后执行，超时的请求按504记录。Repository的查询由{@link RepositoryDeadlineConfig}
+ * 按剩余时间超时，查询失败时在这里就能确定是截止时间导致的；已经在线程上执行的阻塞调用（例如@Blocking）不能被中断，会继续执行到
+ * 结束，只是结果被丢弃。由{@link DeadlineConfig}注册。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class RequestDeadlineFilter implements WebFilter, Ordered {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Value("${deadline.header:X-Request-Timeout}")
+	private String header;
+
+	@Value("${deadline.default:10s}")
+	private Duration defaultTimeout;
+
+	@Resource
+	private Environment environment;
+
+	// 按具体程度排序，第一个匹配的生效
+	private List<Route> routes = Collections.emptyList();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		// 路径中有/和*，配置时要写成deadline.routes[/user/stream/**]=0
+		Map<String, Duration> configured = Binder.get(environment)
+				.bind("deadline.routes", Bindable.mapOf(String.class, Duration.class))
+				.orElse(Collections.emptyMap());
+		List<Route> routes = new ArrayList<>();
+		configured.forEach((pattern, timeout) -> routes.add(new Route(PathPatternParser.defaultInstance.parse(pattern), timeout)));
+		routes.sort((a, b) -> PathPattern.SPECIFICITY_COMPARATOR.compare(a.pattern, b.pattern));
+		this.routes = routes;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		Duration timeout = timeout(exchange.getRequest().getPath().pathWithinApplication());
+		boolean limited = !timeout.isZero();
+		Duration requested = requested(exchange.getRequest().getHeaders().getFirst(header));
+		// 请求头为0或负数时同样生效，直接返回504
+		if (requested != null && (!limited || requested.compareTo(timeout) < 0)) {
+			timeout = requested;
+			limited = true;
+		}
+		if (!limited) {
+			return chain.filter(exchange);
+		}
+		long deadline = System.nanoTime() + timeout.toNanos();
+		return Deadlines.apply(chain.filter(exchange)).contextWrite(Context.of(Deadlines.KEY, deadline));
+	}
+
+	@Override
+	public int getOrder() {
+		// 在InFlightRequestsFilter和Spring Boot的MetricsWebFilter（HIGHEST_PRECEDENCE + 1）之后
+		return Ordered.HIGHEST_PRECEDENCE + 2;
+	}
+
+	private Duration timeout(PathContainer path) {
+		for (Route route : routes) {
+			if (route.pattern.matches(path)) {
+				return route.timeout;
+			}
+		}
+		return defaultTimeout;
+	}
+
+	// 格式不正确时忽略，按默认值处理
+	private static Duration requested(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return DurationStyle.detectAndParse(value.trim());
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	// 路径模式和它的超时时间
+	private static final class Route {
+		final PathPattern pattern;
+		final Duration timeout;
+
+		Route(PathPattern pattern, Duration timeout) {
+			this.pattern = pattern;
+			this.timeout = timeout;
+		}
+	}
+}
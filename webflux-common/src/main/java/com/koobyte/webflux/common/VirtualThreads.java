@@ -0,0 +1,95 @@
+package com.koobyte.webflux.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程（JDK 21）：项目按Java 8编译，不能直接引用Thread.ofVirtual()等API，这里通过反射创建；运行在JDK 21以下（包括需要
+ * --enable-preview的JDK 19、20）时{@link #isAvailable()}返回false。只依赖JDK，async-servlet不引入Spring也可以使用。
+ * <p>
+ * 虚拟线程阻塞时（sleep、Socket读写等）从载体线程上卸载，适合大量并发的阻塞调用；在synchronized块中阻塞会占住载体线程（JDK 24之前）。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public final class VirtualThreads {
+	//~ Static fields/constants/initializer
+
+	private static final Method OF_VIRTUAL;
+	private static final Method NAME;
+	private static final Method FACTORY;
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			// 预览版本没有开启时调用会失败
+			ofVirtual.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+	private VirtualThreads() {
+	}
+
+	//~ Methods
+
+	public static boolean isAvailable() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * 创建虚拟线程的工厂，线程名为前缀加上从0开始的序号。
+	 */
+	public static ThreadFactory factory(String prefix) {
+		checkAvailable();
+		try {
+			Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Failed to create virtual thread factory", e);
+		}
+	}
+
+	/**
+	 * 每个任务一个虚拟线程的执行器，没有线程数和队列的限制。
+	 */
+	public static ExecutorService newExecutor(String prefix) {
+		ThreadFactory factory = factory(prefix);
+		try {
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Failed to create virtual thread executor", e);
+		}
+	}
+
+	private static void checkAvailable() {
+		if (!isAvailable()) {
+			throw new IllegalStateException("Virtual threads require JDK 21 or later, running on "
+					+ System.getProperty("java.version"));
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.koobyte.webflux.common;
+
+import com.koobyte.webflux.common.Deadlines.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 截止时间是System.nanoTime()的绝对值，定时器使用虚拟时间：截止时间在订阅时写入Context，比整秒的事件多留半秒，避免真实时间的
+ * 流逝影响结果。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class DeadlinesTest {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	public void testFluxCancelledAtDeadline() {
+		AtomicReference<PublisherProbe<Long>> probe = new AtomicReference<>();
+		StepVerifier.withVirtualTime(() -> {
+			// 在supplier中创建，interval才会使用虚拟时间的调度器
+			probe.set(PublisherProbe.of(Flux.interval(Duration.ofSeconds(1)).take(10)));
+			return Deadlines.apply(probe.get().flux()).contextWrite(deadline(Duration.ofMillis(5500)));
+		})
+				.expectSubscription()
+				// 整体的截止时间，不是每个元素之间的超时
+				.thenAwait(Duration.ofSeconds(5))
+				.expectNext(0L, 1L, 2L, 3L, 4L)
+				.expectNoEvent(Duration.ofMillis(400))
+				.thenAwait(Duration.ofMillis(100))
+				.expectError(DeadlineExceededException.class)
+				.verify(Duration.ofSeconds(5));
+		probe.get().assertWasCancelled();
+	}
+
+	@Test
+	public void testFluxCompletesBeforeDeadline() {
+		StepVerifier.withVirtualTime(() -> Deadlines.apply(Flux.interval(Duration.ofSeconds(1)).take(3))
+				.contextWrite(deadline(Duration.ofMillis(5500))))
+				.thenAwait(Duration.ofSeconds(3))
+				.expectNext(0L, 1L, 2L)
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+		// 完成之后定时器不再触发
+		StepVerifier.withVirtualTime(() -> Deadlines.apply(Flux.interval(Duration.ofSeconds(1)).take(3))
+				.contextWrite(deadline(Duration.ofMillis(5500))))
+				.thenAwait(Duration.ofSeconds(10))
+				.expectNextCount(3)
+				.verifyComplete();
+	}
+
+	@Test
+	public void testExpiredFailsWithoutSubscribing() {
+		PublisherProbe<Long> flux = PublisherProbe.of(Flux.just(1L));
+		StepVerifier.create(Deadlines.apply(flux.flux()).contextWrite(deadline(Duration.ZERO)))
+				.expectError(DeadlineExceededException.class)
+				.verify(Duration.ofSeconds(5));
+		assertFalse(flux.wasSubscribed());
+
+		PublisherProbe<Long> mono = PublisherProbe.of(Mono.just(1L));
+		StepVerifier.create(Deadlines.apply(mono.mono()).contextWrite(deadline(Duration.ofSeconds(-1))))
+				.expectError(DeadlineExceededException.class)
+				.verify(Duration.ofSeconds(5));
+		assertFalse(mono.wasSubscribed());
+	}
+
+	@Test
+	public void testMonoTimesOutAtDeadline() {
+		AtomicReference<PublisherProbe<Long>> probe = new AtomicReference<>();
+		StepVerifier.withVirtualTime(() -> {
+			probe.set(PublisherProbe.of(Mono.delay(Duration.ofSeconds(10))));
+			return Deadlines.apply(probe.get().mono()).contextWrite(deadline(Duration.ofMillis(2500)));
+		})
+				.expectSubscription()
+				.expectNoEvent(Duration.ofSeconds(2))
+				.thenAwait(Duration.ofSeconds(1))
+				.expectError(DeadlineExceededException.class)
+				.verify(Duration.ofSeconds(5));
+		probe.get().assertWasCancelled();
+	}
+
+	@Test
+	public void testWithoutDeadline() {
+		StepVerifier.withVirtualTime(() -> Deadlines.apply(Flux.interval(Duration.ofMinutes(1)).take(3)))
+				.thenAwait(Duration.ofMinutes(3))
+				.expectNext(0L, 1L, 2L)
+				.verifyComplete();
+		StepVerifier.create(Mono.deferContextual(context -> Mono.justOrEmpty(Deadlines.remaining(context))))
+				.verifyComplete();
+		StepVerifier.create(Mono.deferContextual(context -> Mono.just(Deadlines.remaining(context)))
+				.contextWrite(deadline(Duration.ofSeconds(5))))
+				.assertNext(remaining -> assertTrue(remaining.compareTo(Duration.ofSeconds(5)) <= 0 && !remaining.isNegative()))
+				.verifyComplete();
+	}
+
+	// 订阅时才计算截止时间，组装和订阅之间的真实耗时（负载高时可能超过半秒）不计入
+	private static Function<Context, Context> deadline(Duration timeout) {
+		return context -> context.put(Deadlines.KEY, System.nanoTime() + timeout.toNanos());
+	}
+}
@@ -0,0 +1,221 @@
+package com.koobyte.webflux.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 慢的订阅者用StepVerifier按需请求模拟，热源用Sinks在没有请求时推入事件；心跳使用虚拟时间。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class EventStreamsTest {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	public void testBackpressureBoundsRequests() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 8, "1MB", Duration.ZERO);
+		List<Long> requests = new ArrayList<>();
+		Flux<ServerSentEvent<Map<String, Integer>>> source = Flux.range(0, 100)
+				.doOnRequest(requests::add)
+				.map(i -> ServerSentEvent.builder(Collections.singletonMap("i", i)).id(String.valueOf(i)).build());
+		StepVerifier.create(streams.stream("credit", source), 0)
+				.thenRequest(3)
+				.assertNext(event -> assertEquals("{\"i\":0}", event.data()))
+				.expectNextCount(2)
+				// 下游只要了3个，缓冲中最多再有8个
+				.then(() -> assertTrue(sum(requests) <= 3 + 8, requests.toString()))
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(97)
+				.verifyComplete();
+		assertTrue(requests.stream().allMatch(request -> request <= 8), requests.toString());
+	}
+
+	@Test
+	public void testByteBound() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 1000, "100B", Duration.ZERO);
+		List<Long> requests = new ArrayList<>();
+		// 每个事件约60字节，缓冲中只能放下一个
+		Flux<ServerSentEvent<String>> source = Flux.range(0, 50)
+				.doOnRequest(requests::add)
+				.map(i -> ServerSentEvent.builder(String.format("%044d", i)).build());
+		StepVerifier.create(streams.stream("bytes", source), 0)
+				.thenRequest(1)
+				.expectNextCount(1)
+				.then(() -> assertTrue(sum(requests) <= 2, requests.toString()))
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(49)
+				.verifyComplete();
+		assertTrue(requests.stream().allMatch(request -> request == 1), requests.toString());
+	}
+
+	@Test
+	public void testNoConflationBelowCapacity() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 8, "1MB", Duration.ZERO);
+		Sinks.Many<int[]> source = Sinks.many().multicast().directBestEffort();
+		StepVerifier.create(streams.bounded("partial", source.asFlux(), 4, value -> value[0]), 0)
+				.then(() -> {
+					source.tryEmitNext(new int[]{1, 1});
+					source.tryEmitNext(new int[]{1, 2});
+					source.tryEmitNext(new int[]{1, 3});
+				})
+				.thenRequest(10)
+				.assertNext(value -> assertArrayEquals(new int[]{1, 1}, value))
+				.assertNext(value -> assertArrayEquals(new int[]{1, 2}, value))
+				.assertNext(value -> assertArrayEquals(new int[]{1, 3}, value))
+				.thenCancel()
+				.verify();
+		assertEquals(0, streams.dropped("partial"));
+	}
+
+	@Test
+	public void testConflateWhenFull() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 8, "1MB", Duration.ZERO);
+		Sinks.Many<int[]> source = Sinks.many().multicast().directBestEffort();
+		List<int[]> discarded = new ArrayList<>();
+		StepVerifier.create(streams.bounded("full", source.asFlux(), 3, value -> value[0])
+				.doOnDiscard(int[].class, discarded::add), 0)
+				.then(() -> {
+					source.tryEmitNext(new int[]{1, 1});
+					source.tryEmitNext(new int[]{2, 1});
+					source.tryEmitNext(new int[]{1, 2});
+					// 满了，队列中没有key 3，丢弃最旧的{1, 1}
+					source.tryEmitNext(new int[]{3, 1});
+					// 替换队列中的{3, 1}
+					source.tryEmitNext(new int[]{3, 2});
+				})
+				.thenRequest(10)
+				.assertNext(value -> assertArrayEquals(new int[]{2, 1}, value))
+				.assertNext(value -> assertArrayEquals(new int[]{1, 2}, value))
+				.assertNext(value -> assertArrayEquals(new int[]{3, 2}, value))
+				.then(() -> source.tryEmitNext(new int[]{4, 1}))
+				.assertNext(value -> assertArrayEquals(new int[]{4, 1}, value))
+				.thenCancel()
+				.verify();
+		assertEquals(2, discarded.size());
+		assertEquals(1.0, registry.get("sse.events.dropped").tags("stream", "full", "reason", "overflow").counter().count());
+		assertEquals(1.0, registry.get("sse.events.dropped").tags("stream", "full", "reason", "conflated").counter().count());
+		assertEquals(2, streams.dropped("full"));
+	}
+
+	@Test
+	public void testEvict() {
+		EventStreams streams = streams(EventStreams.Overflow.EVICT, 8, "1MB", Duration.ZERO);
+		Sinks.Many<ServerSentEvent<String>> source = Sinks.many().multicast().directBestEffort();
+		StepVerifier.create(streams.stream("evict", streams.bounded("evict", source.asFlux(), 2, null)), 0)
+				// stream的缓冲放下8个，bounded的队列放下2个，第11个驱逐
+				.then(() -> {
+					for (int i = 0; i < 11; i++) {
+						source.tryEmitNext(ServerSentEvent.builder("event" + i).build());
+					}
+				})
+				.thenRequest(20)
+				.expectNextCount(8)
+				.assertNext(event -> assertEquals("evicted", event.event()))
+				.verifyComplete();
+		assertEquals(0, source.currentSubscriberCount());
+		assertEquals(1.0, registry.get("sse.streams.evicted").tag("stream", "evict").counter().count());
+		assertEquals(3, streams.dropped("evict"));
+	}
+
+	@Test
+	public void testHeartbeat() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 8, "1MB", Duration.ofSeconds(15));
+		StepVerifier.withVirtualTime(() -> streams.stream("heartbeat", Flux.<ServerSentEvent<String>>never()), 0)
+				.expectSubscription()
+				.then(() -> assertEquals(1.0, registry.get("sse.streams.active").tag("stream", "heartbeat").gauge().value()))
+				// 下游没有请求时不发送，错过的心跳不补发
+				.thenAwait(Duration.ofSeconds(60))
+				.thenRequest(2)
+				.expectNoEvent(Duration.ofSeconds(14))
+				.thenAwait(Duration.ofSeconds(1))
+				.assertNext(event -> assertEquals("heartbeat", event.comment()))
+				.thenAwait(Duration.ofSeconds(15))
+				.assertNext(event -> assertEquals("heartbeat", event.comment()))
+				.thenCancel()
+				.verify();
+		assertEquals(0.0, registry.get("sse.streams.active").tag("stream", "heartbeat").gauge().value());
+	}
+
+	@Test
+	public void testCancelIsNotDropped() {
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 8, "1MB", Duration.ZERO);
+		Sinks.Many<int[]> source = Sinks.many().multicast().directBestEffort();
+		List<int[]> discarded = new ArrayList<>();
+		StepVerifier.create(streams.bounded("cancel", source.asFlux(), 3, value -> value[0])
+				.doOnDiscard(int[].class, discarded::add), 0)
+				.then(() -> {
+					source.tryEmitNext(new int[]{1, 1});
+					source.tryEmitNext(new int[]{2, 1});
+				})
+				.thenCancel()
+				.verify();
+		assertEquals(2, discarded.size());
+		assertEquals(0, streams.dropped("cancel"));
+	}
+
+	@Test
+	public void testNestedAcrossThreads() {
+		// bounded的输出作为stream的上游，热源、心跳和慢的订阅者各在不同的线程上
+		EventStreams streams = streams(EventStreams.Overflow.CONFLATE, 16, "1MB", Duration.ofMillis(1));
+		int count = 20_000;
+		Flux<ServerSentEvent<Integer>> source = Flux.range(0, count)
+				.publishOn(Schedulers.parallel())
+				.map(i -> ServerSentEvent.builder(i).build());
+		List<Integer> received = streams.stream("nested", streams.bounded("nested", source, 64, null))
+				.filter(event -> event.data() != null)
+				.map(event -> Integer.valueOf(event.data()))
+				.publishOn(Schedulers.boundedElastic(), 4)
+				.collectList()
+				.block(Duration.ofSeconds(30));
+		for (int i = 1; i < received.size(); i++) {
+			assertTrue(received.get(i) > received.get(i - 1));
+		}
+		assertEquals(count, received.size() + streams.dropped("nested"));
+	}
+
+	private EventStreams streams(EventStreams.Overflow overflow, int maxEvents, String maxBytes, Duration heartbeat) {
+		EventStreams streams = new EventStreams();
+		ReflectionTestUtils.setField(streams, "heartbeat", heartbeat);
+		ReflectionTestUtils.setField(streams, "maxEvents", maxEvents);
+		ReflectionTestUtils.setField(streams, "maxBytes", DataSize.parse(maxBytes));
+		ReflectionTestUtils.setField(streams, "overflow", overflow);
+		ReflectionTestUtils.setField(streams, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(streams, "meterRegistry", registry);
+		return streams;
+	}
+
+	private static long sum(List<Long> requests) {
+		return requests.stream().mapToLong(Long::longValue).sum();
+	}
+}
@@ -0,0 +1,106 @@
+package com.koobyte.webflux.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 处理请求需要1秒的/slow，分别用默认值、路径配置和请求头限制截止时间；/remaining返回处理时剩余的毫秒数，-1表示没有截止时间。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class RequestDeadlineFilterTest {
+	//~ Static fields/constants/initializer
+
+	static final String HEADER = "X-Request-Timeout";
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	public void testDefaultTimeout() {
+		WebTestClient client = client(Duration.ofMillis(100));
+		client.get().uri("/slow").exchange().expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+		client.get().uri("/fast").exchange().expectStatus().isOk();
+	}
+
+	@Test
+	public void testShorterHeaderWins() {
+		WebTestClient client = client(Duration.ofSeconds(10));
+		client.get().uri("/slow").header(HEADER, "100").exchange().expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+		client.get().uri("/remaining").header(HEADER, "2s").exchange()
+				.expectStatus().isOk()
+				.expectBody(Long.class).value(remaining -> assertTrue(remaining > 0 && remaining <= 2000, "" + remaining));
+		// 比默认值长的请求头不生效
+		client(Duration.ofMillis(100)).get().uri("/slow").header(HEADER, "10s").exchange()
+				.expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+		// 格式不正确时按默认值
+		client.get().uri("/remaining").header(HEADER, "soon").exchange()
+				.expectBody(Long.class).value(remaining -> assertTrue(remaining > 2000, "" + remaining));
+	}
+
+	@Test
+	public void testZeroIsUnlimited() {
+		WebTestClient client = client(Duration.ofMillis(100));
+		client.get().uri("/unlimited/slow").exchange().expectStatus().isOk();
+		client.get().uri("/unlimited/remaining").exchange().expectBody(Long.class).isEqualTo(-1L);
+		client(Duration.ZERO).get().uri("/slow").exchange().expectStatus().isOk();
+		// 不限制的路径上请求头仍然生效
+		client.get().uri("/unlimited/slow").header(HEADER, "100ms").exchange()
+				.expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+	}
+
+	@Test
+	public void testExpiredHeaderFailsImmediately() {
+		WebTestClient client = client(Duration.ofSeconds(10));
+		client.get().uri("/remaining").header(HEADER, "0").exchange()
+				.expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+		client.get().uri("/unlimited/remaining").header(HEADER, "-5").exchange()
+				.expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+	}
+
+	private static WebTestClient client(Duration defaultTimeout) {
+		RequestDeadlineFilter filter = new RequestDeadlineFilter();
+		ReflectionTestUtils.setField(filter, "header", HEADER);
+		ReflectionTestUtils.setField(filter, "defaultTimeout", defaultTimeout);
+		ReflectionTestUtils.setField(filter, "environment", new MockEnvironment()
+				.withProperty("deadline.routes[/unlimited/**]", "0"));
+		filter.init();
+		return WebTestClient.bindToRouterFunction(routes())
+				.webFilter(filter)
+				.configureClient()
+				.responseTimeout(Duration.ofSeconds(10))
+				.build();
+	}
+
+	private static RouterFunction<ServerResponse> routes() {
+		RouterFunction<ServerResponse> routes = RouterFunctions.route()
+				.GET("/slow", request -> Mono.delay(Duration.ofSeconds(1)).then(ServerResponse.ok().bodyValue("slow")))
+				.GET("/fast", request -> ServerResponse.ok().bodyValue("fast"))
+				.GET("/remaining", request -> Mono.deferContextual(context -> {
+					Duration remaining = Deadlines.remaining(context);
+					return ServerResponse.ok().bodyValue(remaining == null ? -1L : remaining.toMillis());
+				}))
+				.build();
+		return routes.and(RouterFunctions.nest(RequestPredicates.path("/unlimited"), routes));
+	}
+}
@@ -0,0 +1,215 @@
+package com.koobyte.webflux.common;
+
+import com.sun.management.ThreadMXBean;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 压测的公共部分：客户端使用自己的事件循环（线程名以{@link #CLIENT_PREFIX}开头）和连接池，连接数不少于最大并发数，避免客户端
+ * 成为瓶颈；{@link #run}做闭环负载，用HdrHistogram记录延迟，并统计指定的服务端线程在测量期间消耗的CPU时间、分配的内存和
+ * 整个JVM的GC次数和耗时。各个压测只提供请求、启动应用的方式和结果的格式。
+ * <p>
+ * 在webflux-common的testFixtures中，各个应用的benchmark源码集通过{@code testFixtures(project(':webflux-common'))}共用。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public final class LoadGenerator implements AutoCloseable {
+	//~ Static fields/constants/initializer
+
+	public static final String CLIENT_PREFIX = "benchmark-client";
+
+	//~ Instance fields
+
+	private final LoopResources loops = LoopResources.create(CLIENT_PREFIX);
+	private final ConnectionProvider provider;
+
+	//~ Constructors
+
+	public LoadGenerator(int maxConnections) {
+		provider = ConnectionProvider.builder("benchmark")
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(-1)
+				.build();
+	}
+
+	//~ Methods
+
+	public WebClient client(String baseUrl) {
+		return WebClient.builder()
+				.baseUrl(baseUrl)
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider).runOn(loops)))
+				.build();
+	}
+
+	// 在当前JVM中以随机端口启动的应用
+	public WebClient client(ConfigurableApplicationContext app) {
+		return client("http://localhost:" + ((ReactiveWebServerApplicationContext) app).getWebServer().getPort());
+	}
+
+	/**
+	 * 闭环负载：每个用户收到完整响应后立即发起下一个请求，至少发一个，截止时间之后不再发起新的请求，等待进行中的请求完成。
+	 * 延迟是从发出请求到request返回的Mono完成，出错的请求只计数。
+	 *
+	 * @param threads 统计CPU和内存的服务端线程，为null时不统计
+	 */
+	public static Measurement run(Supplier<? extends Mono<?>> request, int concurrency, Duration duration, Predicate<Thread> threads) {
+		Histogram histogram = new ConcurrentHistogram(3);
+		LongAdder errors = new LongAdder();
+		Usage before = Usage.sample(threads);
+		long start = System.nanoTime();
+		long deadline = start + duration.toNanos();
+		Flux.range(0, concurrency)
+				.flatMap(user -> Mono.defer(() -> {
+					long begin = System.nanoTime();
+					return request.get()
+							.doOnSuccess(response -> histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin)))
+							.onErrorResume(e -> {
+								errors.increment();
+								return Mono.empty();
+							});
+				}).repeat(() -> System.nanoTime() < deadline), concurrency)
+				.blockLast();
+		long elapsed = System.nanoTime() - start;
+		return new Measurement(histogram, errors.sum(), elapsed, threads != null, before, Usage.sample(threads));
+	}
+
+	public static Predicate<Thread> named(String prefix) {
+		return thread -> thread.getName().startsWith(prefix);
+	}
+
+	@Override
+	public void close() {
+		provider.dispose();
+		loops.dispose();
+	}
+
+	// 各个线程累计的CPU时间（纳秒）和分配的字节数，整个JVM的GC次数和耗时（毫秒）
+	private static final class Usage {
+		final Map<Long, long[]> threads;
+		final long collections;
+		final long gcTime;
+
+		Usage(Map<Long, long[]> threads, long collections, long gcTime) {
+			this.threads = threads;
+			this.collections = collections;
+			this.gcTime = gcTime;
+		}
+
+		static Usage sample(Predicate<Thread> filter) {
+			Map<Long, long[]> threads = Collections.emptyMap();
+			if (filter != null) {
+				ThreadMXBean mxBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+				threads = new HashMap<>();
+				for (Thread thread : Thread.getAllStackTraces().keySet()) {
+					if (filter.test(thread)) {
+						threads.put(thread.getId(), new long[]{Math.max(0, mxBean.getThreadCpuTime(thread.getId())),
+								Math.max(0, mxBean.getThreadAllocatedBytes(thread.getId()))});
+					}
+				}
+			}
+			long collections = 0;
+			long gcTime = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				collections += Math.max(0, gc.getCollectionCount());
+				gcTime += Math.max(0, gc.getCollectionTime());
+			}
+			return new Usage(threads, collections, gcTime);
+		}
+	}
+
+	/**
+	 * 一次{@link #run}的结果，时间单位：延迟毫秒，CPU微秒。
+	 */
+	public static final class Measurement {
+		public final Histogram histogram;
+		public final long errors;
+		public final long elapsed;
+		// 是否统计了服务端线程
+		public final boolean sampled;
+		// 服务端线程的CPU时间（纳秒）和分配的字节数
+		public final long cpu;
+		public final long allocated;
+		// 最忙的线程的CPU时间（纳秒）和线程数
+		public final long maxThreadCpu;
+		public final int threads;
+		public final long collections;
+		public final long gcTime;
+
+		private Measurement(Histogram histogram, long errors, long elapsed, boolean sampled, Usage before, Usage after) {
+			this.histogram = histogram;
+			this.errors = errors;
+			this.elapsed = elapsed;
+			this.sampled = sampled;
+			// 服务端线程是按需创建的，测量期间新建的线程从0开始算
+			long cpu = 0;
+			long allocated = 0;
+			long maxThreadCpu = 0;
+			for (Map.Entry<Long, long[]> entry : after.threads.entrySet()) {
+				long[] previous = before.threads.getOrDefault(entry.getKey(), new long[2]);
+				long used = entry.getValue()[0] - previous[0];
+				cpu += used;
+				allocated += entry.getValue()[1] - previous[1];
+				maxThreadCpu = Math.max(maxThreadCpu, used);
+			}
+			this.cpu = cpu;
+			this.allocated = allocated;
+			this.maxThreadCpu = maxThreadCpu;
+			this.threads = after.threads.size();
+			this.collections = after.collections - before.collections;
+			this.gcTime = after.gcTime - before.gcTime;
+		}
+
+		public long requests() {
+			return histogram.getTotalCount();
+		}
+
+		public double throughput() {
+			return requests() * 1e9 / elapsed;
+		}
+
+		public double percentile(double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1000.0;
+		}
+
+		public double cpuPerRequest() {
+			return cpu / 1000.0 / Math.max(1, requests());
+		}
+
+		public double allocatedPerRequest() {
+			return (double) allocated / Math.max(1, requests());
+		}
+
+		// 服务端线程平均的CPU利用率
+		public double utilisation() {
+			return threads == 0 ? 0 : (double) cpu / threads / elapsed;
+		}
+
+		// 最忙的服务端线程的CPU利用率
+		public double maxUtilisation() {
+			return (double) maxThreadCpu / elapsed;
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.common.VirtualThreads;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对比阻塞调用在boundedElastic（@Blocking默认的调度器）、ForkJoinPool公共池（CompletableFuture默认的执行器）和虚拟线程上的并发能力：
+ * 同时提交N个阻塞任务（每个睡眠固定时间，模拟HelloController.print()这样的阻塞调用），测量全部完成的时间、吞吐量、平均同时执行的
+ * 任务数、从提交到完成的延迟（HdrHistogram的p50/p99）和新增的平台线程数。
+ * <p>
+ * 参数依次为：逗号分隔的任务数（默认100,1000,10000），每个任务阻塞的毫秒数（默认100），每轮的最长秒数（默认30，超时后未开始的
+ * 任务直接结束，只统计已完成的），逗号分隔的方式（默认bounded-elastic,common-pool,virtual）。虚拟线程需要JDK 21，
+ * 低版本JDK跳过并输出提示。boundedElastic最多CPU核数10倍的线程，公共池的线程数为CPU核数减1，超出的任务都要排队。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class BlockingCapacityBenchmark {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) throws InterruptedException {
+		int[] levels = Arrays.stream((args.length > 0 ? args[0] : "100,1000,10000").split(","))
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		long blockMillis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+		Duration timeout = Duration.ofSeconds(args.length > 2 ? Integer.parseInt(args[2]) : 30);
+		String[] modes = (args.length > 3 ? args[3] : "bounded-elastic,common-pool,virtual").split(",");
+
+		List<Result> results = new ArrayList<>();
+		for (String mode : modes) {
+			if ("virtual".equals(mode) && !VirtualThreads.isAvailable()) {
+				System.out.println("virtual threads require JDK 21 or later, running on "
+						+ System.getProperty("java.version") + ", skipped");
+				continue;
+			}
+			for (int tasks : levels) {
+				Result result = run(mode, tasks, blockMillis, timeout);
+				results.add(result);
+				System.out.println(result);
+			}
+		}
+
+		System.out.println();
+		System.out.printf("%-15s %7s %9s %10s %10s %11s %9s %9s %8s %8s%n", "mode", "tasks", "completed", "elapsed(s)",
+				"tasks/s", "concurrency", "p50(ms)", "p99(ms)", "threads", "rejected");
+		results.forEach(System.out::println);
+	}
+
+	private static Result run(String mode, int tasks, long blockMillis, Duration timeout) throws InterruptedException {
+		Scheduler scheduler = null;
+		ExecutorService virtual = null;
+		Submitter submitter;
+		switch (mode) {
+			case "bounded-elastic":
+				scheduler = Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+						Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "benchmark-elastic");
+				submitter = scheduler::schedule;
+				break;
+			case "common-pool":
+				submitter = ForkJoinPool.commonPool()::execute;
+				break;
+			case "virtual":
+				virtual = VirtualThreads.newExecutor("benchmark-virtual-");
+				submitter = virtual::execute;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown mode: " + mode);
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int baseThreads = threads.getThreadCount();
+		threads.resetPeakThreadCount();
+		Histogram histogram = new ConcurrentHistogram(3);
+		CountDownLatch exited = new CountDownLatch(tasks);
+		AtomicBoolean stop = new AtomicBoolean();
+		LongAdder rejected = new LongAdder();
+		long start = System.nanoTime();
+		for (int i = 0; i < tasks; i++) {
+			Task task = new Task(System.nanoTime(), blockMillis, histogram, exited, stop);
+			try {
+				submitter.submit(task);
+			} catch (RejectedExecutionException e) {
+				rejected.increment();
+				exited.countDown();
+			}
+		}
+		// 超时后还没开始的任务直接结束，已经在阻塞的任务最多再等一个阻塞时间
+		boolean finished = exited.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		long elapsed = System.nanoTime() - start;
+		if (!finished) {
+			stop.set(true);
+			exited.await();
+		}
+		int peakThreads = threads.getPeakThreadCount() - baseThreads;
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+		if (virtual != null) {
+			virtual.shutdown();
+		}
+		return new Result(mode, tasks, histogram, elapsed, blockMillis, peakThreads, rejected.sum());
+	}
+
+	// 一个阻塞任务，完成时记录从提交到完成的时间
+	private static final class Task implements Runnable {
+		final long submitted;
+		final long blockMillis;
+		final Histogram histogram;
+		final CountDownLatch exited;
+		final AtomicBoolean stop;
+
+		Task(long submitted, long blockMillis, Histogram histogram, CountDownLatch exited, AtomicBoolean stop) {
+			this.submitted = submitted;
+			this.blockMillis = blockMillis;
+			this.histogram = histogram;
+			this.exited = exited;
+			this.stop = stop;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!stop.get()) {
+					Thread.sleep(blockMillis);
+					if (!stop.get()) {
+						histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				exited.countDown();
+			}
+		}
+	}
+
+	// 提交任务的方式，调度器和执行器的方法签名不同
+	private interface Submitter {
+		void submit(Runnable task);
+	}
+
+	// 一种方式的一个任务数的测量结果
+	private static final class Result {
+		final String mode;
+		final int tasks;
+		final Histogram histogram;
+		final long elapsed;
+		final long blockMillis;
+		final int threads;
+		final long rejected;
+
+		Result(String mode, int tasks, Histogram histogram, long elapsed, long blockMillis, int threads, long rejected) {
+			this.mode = mode;
+			this.tasks = tasks;
+			this.histogram = histogram;
+			this.elapsed = elapsed;
+			this.blockMillis = blockMillis;
+			this.threads = threads;
+			this.rejected = rejected;
+		}
+
+		@Override
+		public String toString() {
+			long completed = histogram.getTotalCount();
+			// 平均同时在阻塞的任务数
+			double concurrency = completed * blockMillis * 1e6 / elapsed;
+			return String.format("%-15s %7d %9d %10.2f %10.1f %11.1f %9.1f %9.1f %8d %8d", mode, tasks, completed,
+					elapsed / 1e9, completed * 1e9 / elapsed, concurrency,
+					histogram.getValueAtPercentile(50) / 1000.0,
+					histogram.getValueAtPercentile(99) / 1000.0,
+					threads, rejected);
+		}
+	}
+}
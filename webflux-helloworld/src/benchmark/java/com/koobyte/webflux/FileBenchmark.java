@@ -0,0 +1,163 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.common.LoadGenerator;
+import com.koobyte.webflux.common.LoadGenerator.Measurement;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 对比/files/{name}三种传输方式（zero-copy、mmap、heap）的开销：吞吐量、延迟（HdrHistogram的p50/p99）、服务端线程
+ * （客户端以外的所有线程）每个请求消耗的CPU时间和分配的内存，以及测量期间整个JVM的GC次数和耗时。
+ * <p>
+ * 在当前JVM中依次以每种方式启动应用，下载临时目录中生成的同一个文件；每种方式测两个场景：完整文件，以及随机位置1MB的Range请求。
+ * 参数依次为：文件大小MB（默认64），并发数（默认8），每个场景的测量秒数（默认10），逗号分隔的传输方式（默认zero-copy,mmap,heap）。
+ * 文件在第一次读取后就在页缓存中，结果不包括磁盘读取；客户端在同一个JVM中，GC统计包括客户端，但客户端的开销在各种方式之间相同。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class FileBenchmark {
+	//~ Static fields/constants/initializer
+
+	// 客户端线程和发起压测的线程以外都算服务端；服务端除了事件循环和@Blocking的阻塞调度器线程，heap方式还有异步文件通道的线程
+	private static final Predicate<Thread> SERVER_THREADS = LoadGenerator.named(LoadGenerator.CLIENT_PREFIX).negate()
+			.and(thread -> thread != Thread.currentThread());
+
+	private static final int RANGE_SIZE = 1024 * 1024;
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) throws IOException {
+		int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Integer.parseInt(args[2]) : 10);
+		String[] transfers = (args.length > 3 ? args[3] : "zero-copy,mmap,heap").split(",");
+
+		Path root = Files.createTempDirectory("file-benchmark");
+		Path file = root.resolve("dump.bin");
+		long size = (long) sizeMb * 1024 * 1024;
+		write(file, size);
+
+		List<Result> results = new ArrayList<>();
+		try (LoadGenerator load = new LoadGenerator(concurrency)) {
+			for (String transfer : transfers) {
+				ConfigurableApplicationContext app = SpringApplication.run(WebfluxHelloworldApplication.class,
+						"--server.port=0", "--deadline.default=0", "--files.root=" + root, "--files.transfer=" + transfer,
+						"--logging.level.root=warn");
+				try {
+					WebClient client = load.client(app);
+					Map<String, Supplier<Mono<Long>>> scenarios = new LinkedHashMap<>();
+					scenarios.put("full " + sizeMb + "MB", () -> download(client, null));
+					scenarios.put("range 1MB", () -> {
+						long start = ThreadLocalRandom.current().nextLong(size - RANGE_SIZE);
+						return download(client, "bytes=" + start + "-" + (start + RANGE_SIZE - 1));
+					});
+					for (Map.Entry<String, Supplier<Mono<Long>>> scenario : scenarios.entrySet()) {
+						// 预热：JIT编译、建立连接、把文件读到页缓存
+						run(transfer, scenario.getKey(), scenario.getValue(), concurrency, duration.dividedBy(2));
+						Result result = run(transfer, scenario.getKey(), scenario.getValue(), concurrency, duration);
+						results.add(result);
+						System.out.println(result);
+					}
+				} finally {
+					app.close();
+				}
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(root);
+		}
+
+		System.out.println();
+		System.out.printf("%-10s %-11s %8s %9s %9s %9s %12s %14s %6s %8s %7s%n", "transfer", "scenario", "req/s",
+				"MB/s", "p50(ms)", "p99(ms)", "cpu(us/req)", "alloc(KB/req)", "gc", "gc(ms)", "errors");
+		results.forEach(System.out::println);
+	}
+
+	// 读完响应体并释放，返回收到的字节数
+	private static Mono<Long> download(WebClient client, String range) {
+		return client.get()
+				.uri("/files/dump.bin")
+				.headers(headers -> {
+					if (range != null) {
+						headers.set("Range", range);
+					}
+				})
+				.exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+						.map(buffer -> {
+							long bytes = buffer.readableByteCount();
+							DataBufferUtils.release(buffer);
+							return bytes;
+						})
+						.reduce(0L, Long::sum));
+	}
+
+	private static Result run(String transfer, String scenario, Supplier<Mono<Long>> request,
+	                          int concurrency, Duration duration) {
+		LongAdder bytes = new LongAdder();
+		Measurement measurement = LoadGenerator.run(() -> request.get().doOnNext(bytes::add), concurrency, duration,
+				SERVER_THREADS);
+		return new Result(transfer, scenario, measurement, bytes.sum());
+	}
+
+	private static void write(Path file, long size) throws IOException {
+		byte[] block = new byte[64 * 1024];
+		try (OutputStream out = Files.newOutputStream(file)) {
+			for (long written = 0; written < size; written += block.length) {
+				ThreadLocalRandom.current().nextBytes(block);
+				out.write(block, 0, (int) Math.min(block.length, size - written));
+			}
+		}
+	}
+
+	// 一种传输方式的一个场景的测量结果
+	private static final class Result {
+		final String transfer;
+		final String scenario;
+		final Measurement measurement;
+		final long bytes;
+
+		Result(String transfer, String scenario, Measurement measurement, long bytes) {
+			this.transfer = transfer;
+			this.scenario = scenario;
+			this.measurement = measurement;
+			this.bytes = bytes;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-10s %-11s %8.1f %9.1f %9.2f %9.2f %12.1f %14.1f %6d %8d %7d", transfer, scenario,
+					measurement.throughput(),
+					bytes * 1e9 / measurement.elapsed / 1024 / 1024,
+					measurement.percentile(50), measurement.percentile(99), measurement.cpuPerRequest(),
+					measurement.allocatedPerRequest() / 1024, measurement.collections, measurement.gcTime,
+					measurement.errors);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.common.LoadGenerator;
+import com.koobyte.webflux.common.LoadGenerator.Measurement;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * /hello、/hello/mono和/hello/flux的压测：用非阻塞的WebClient做闭环负载（每个并发用户收到完整响应后立即发起下一个请求），
+ * 依次测量各个并发数下的吞吐量、延迟（HdrHistogram的p50/p99/p999）和服务端事件循环线程的CPU利用率，并与基线比较。
+ * <p>
+ * 参数依次为：服务地址，默认local，在当前JVM中以随机端口启动应用，只有这种方式能统计事件循环利用率；逗号分隔的接口
+ * （默认/hello,/hello/mono,/hello/flux）；逗号分隔的并发数（默认1,8,32）；每个并发数的测量秒数（默认10）。
+ * <p>
+ * 基线文件由系统属性{@code benchmark.baseline}指定，吞吐量低于基线或p99高于基线超过{@code benchmark.tolerance}（默认0.2）
+ * 时视为退化，进程以状态1退出；{@code benchmark.update-baseline=true}时用本次结果覆盖基线。基线与机器相关，换机器后需要重新生成。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class HelloBenchmark {
+	//~ Static fields/constants/initializer
+
+	// 服务端默认事件循环线程名的前缀，客户端使用单独的线程，不计入
+	private static final Predicate<Thread> SERVER_LOOPS = LoadGenerator.named("reactor-http-");
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) throws IOException {
+		String target = args.length > 0 ? args[0] : "local";
+		String[] endpoints = (args.length > 1 ? args[1] : "/hello,/hello/mono,/hello/flux").split(",");
+		int[] levels = Arrays.stream((args.length > 2 ? args[2] : "1,8,32").split(","))
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		Duration duration = Duration.ofSeconds(args.length > 3 ? Integer.parseInt(args[3]) : 10);
+		String baseline = System.getProperty("benchmark.baseline");
+		double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.2"));
+		boolean update = Boolean.getBoolean("benchmark.update-baseline");
+
+		boolean local = "local".equals(target);
+		int maxLevel = Arrays.stream(levels).max().orElse(1);
+		ConfigurableApplicationContext app = null;
+		List<Result> results = new ArrayList<>();
+		try (LoadGenerator load = new LoadGenerator(maxLevel)) {
+			WebClient client;
+			if (local) {
+				// /hello/mono在c32时排队超过10秒，关闭请求的截止时间，测量的是排队而不是504；压测远程的应用时同样以--deadline.default=0启动
+				app = SpringApplication.run(WebfluxHelloworldApplication.class, "--server.port=0", "--deadline.default=0");
+				client = load.client(app);
+			} else {
+				client = load.client(target);
+			}
+			for (String endpoint : endpoints) {
+				// 预热：JIT编译、建立连接
+				run(client, endpoint, maxLevel, duration.dividedBy(5), false);
+				for (int level : levels) {
+					Result result = new Result(endpoint, level, run(client, endpoint, level, duration, local));
+					results.add(result);
+					System.out.println(result);
+				}
+			}
+		} finally {
+			if (app != null) {
+				app.close();
+			}
+		}
+
+		System.out.println();
+		System.out.printf("%-14s %6s %9s %7s %10s %10s %10s %10s %9s %9s%n", "endpoint", "conc", "requests", "errors",
+				"req/s", "p50(ms)", "p99(ms)", "p999(ms)", "loop-avg", "loop-max");
+		results.forEach(System.out::println);
+		if (baseline != null && compare(results, Paths.get(baseline), tolerance, update) > 0) {
+			System.exit(1);
+		}
+	}
+
+	// 延迟是从发出请求到读完整个响应体，只有在本地启动应用时统计事件循环利用率
+	private static Measurement run(WebClient client, String endpoint, int concurrency, Duration duration, boolean measureLoops) {
+		return LoadGenerator.run(() -> client.get().uri(endpoint).retrieve().toBodilessEntity(), concurrency, duration,
+				measureLoops ? SERVER_LOOPS : null);
+	}
+
+	// 返回退化的项数
+	private static int compare(List<Result> results, Path file, double tolerance, boolean update) throws IOException {
+		if (update) {
+			Map<String, String> values = new TreeMap<>();
+			if (Files.exists(file)) {
+				load(file).forEach((key, value) -> values.put((String) key, (String) value));
+			}
+			for (Result result : results) {
+				values.put(result.key("throughput"), String.format(Locale.ROOT, "%.2f", result.throughput()));
+				values.put(result.key("p99"), String.format(Locale.ROOT, "%.2f", result.percentile(99)));
+			}
+			List<String> lines = new ArrayList<>();
+			lines.add("# HelloBenchmark baseline: <endpoint>.c<concurrency>.throughput (req/s), .p99 (ms)");
+			lines.add("# " + Runtime.getRuntime().availableProcessors() + " CPU(s), " + System.getProperty("java.vm.name") + " "
+					+ System.getProperty("java.version"));
+			values.forEach((key, value) -> lines.add(key + "=" + value));
+			Files.write(file, lines, StandardCharsets.ISO_8859_1);
+			System.out.println("Baseline written to " + file);
+			return 0;
+		}
+		if (!Files.exists(file)) {
+			System.out.println("No baseline at " + file + ", run with benchmark.update-baseline=true to create one");
+			return 0;
+		}
+		Properties values = load(file);
+		int regressions = 0;
+		System.out.println();
+		for (Result result : results) {
+			String throughput = values.getProperty(result.key("throughput"));
+			if (throughput != null && result.throughput() < Double.parseDouble(throughput) * (1 - tolerance)) {
+				regressions++;
+				System.out.printf("REGRESSION %s: throughput %.2f req/s, baseline %s%n", result.key(""), result.throughput(), throughput);
+			}
+			String p99 = values.getProperty(result.key("p99"));
+			if (p99 != null && result.percentile(99) > Double.parseDouble(p99) * (1 + tolerance)) {
+				regressions++;
+				System.out.printf("REGRESSION %s: p99 %.2f ms, baseline %s%n", result.key(""), result.percentile(99), p99);
+			}
+		}
+		System.out.printf("%d regression(s) against %s (tolerance %.0f%%)%n", regressions, file, tolerance * 100);
+		return regressions;
+	}
+
+	private static Properties load(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+
+	// 一个接口在一个并发数下的测量结果
+	private static final class Result {
+		final String endpoint;
+		final int concurrency;
+		final Measurement measurement;
+
+		Result(String endpoint, int concurrency, Measurement measurement) {
+			this.endpoint = endpoint;
+			this.concurrency = concurrency;
+			this.measurement = measurement;
+		}
+
+		double throughput() {
+			return measurement.throughput();
+		}
+
+		// 毫秒
+		double percentile(double percentile) {
+			return measurement.percentile(percentile);
+		}
+
+		String key(String metric) {
+			return endpoint + ".c" + concurrency + (metric.isEmpty() ? "" : "." + metric);
+		}
+
+		@Override
+		public String toString() {
+			// 事件循环利用率：平均、最忙的线程，未在本地启动应用时为n/a
+			return String.format("%-14s %6d %9d %7d %10.2f %10.2f %10.2f %10.2f %9s %9s", endpoint, concurrency,
+					measurement.requests(), measurement.errors, throughput(), percentile(50), percentile(99),
+					percentile(99.9),
+					measurement.sampled ? String.format("%.1f%%", measurement.utilisation() * 100) : "n/a",
+					measurement.sampled ? String.format("%.1f%%", measurement.maxUtilisation() * 100) : "n/a");
+		}
+	}
+}
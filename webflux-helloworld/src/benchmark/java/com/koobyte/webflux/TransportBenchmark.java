@@ -0,0 +1,98 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.common.LoadGenerator;
+import com.koobyte.webflux.common.LoadGenerator.Measurement;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 对比服务端使用NIO和原生epoll传输（{@code netty.transport}）时接口的吞吐量、延迟（HdrHistogram的p50/p99/p999）和每个请求在
+ * 服务端事件循环线程上消耗的CPU时间。
+ * <p>
+ * 在当前JVM中依次以每种传输方式启动应用，参数依次为：逗号分隔的接口（默认/hello/flux），并发数（默认32），每个接口的测量秒数
+ * （默认30），逗号分隔的传输方式（默认nio,epoll）。/hello/flux每个请求在阻塞调度器上睡眠8秒，吞吐量和延迟主要由睡眠和
+ * 阻塞调度器的线程数决定，两种传输的差别主要体现在事件循环的CPU时间上；/hello/mono等短请求更能体现传输本身的开销。
+ * 先运行的一方要承担JIT编译，可以重复传输方式，例如nio,epoll,nio,epoll，以后面两轮为准。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class TransportBenchmark {
+	//~ Static fields/constants/initializer
+
+	// 服务端事件循环线程名的前缀，见NettyServerConfig；客户端使用单独的线程，不计入
+	private static final Predicate<Thread> SERVER_LOOPS = LoadGenerator.named("reactor-http-server-");
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) {
+		String[] endpoints = (args.length > 0 ? args[0] : "/hello/flux").split(",");
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Integer.parseInt(args[2]) : 30);
+		String[] transports = (args.length > 3 ? args[3] : "nio,epoll").split(",");
+
+		List<Result> results = new ArrayList<>();
+		try (LoadGenerator load = new LoadGenerator(concurrency)) {
+			for (String transport : transports) {
+				ConfigurableApplicationContext app = SpringApplication.run(WebfluxHelloworldApplication.class,
+						"--server.port=0", "--deadline.default=0", "--netty.transport=" + transport, "--logging.level.root=warn");
+				try {
+					WebClient client = load.client(app);
+					for (String endpoint : endpoints) {
+						// 预热：JIT编译、建立连接
+						run(client, endpoint, concurrency, duration.dividedBy(2));
+						Result result = new Result(transport, endpoint, run(client, endpoint, concurrency, duration));
+						results.add(result);
+						System.out.println(result);
+					}
+				} finally {
+					app.close();
+				}
+			}
+		}
+
+		System.out.println();
+		System.out.printf("%-9s %-14s %10s %9s %9s %9s %12s %7s%n", "transport", "endpoint", "req/s", "p50(ms)",
+				"p99(ms)", "p999(ms)", "cpu(us/req)", "errors");
+		results.forEach(System.out::println);
+	}
+
+	private static Measurement run(WebClient client, String endpoint, int concurrency, Duration duration) {
+		return LoadGenerator.run(() -> client.get().uri(endpoint).retrieve().toBodilessEntity(), concurrency, duration,
+				SERVER_LOOPS);
+	}
+
+	// 一种传输方式的一个接口的测量结果
+	private static final class Result {
+		final String transport;
+		final String endpoint;
+		final Measurement measurement;
+
+		Result(String transport, String endpoint, Measurement measurement) {
+			this.transport = transport;
+			this.endpoint = endpoint;
+			this.measurement = measurement;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-9s %-14s %10.1f %9.2f %9.2f %9.2f %12.1f %7d", transport, endpoint,
+					measurement.throughput(), measurement.percentile(50), measurement.percentile(99),
+					measurement.percentile(99.9), measurement.cpuPerRequest(), measurement.errors);
+		}
+	}
+}
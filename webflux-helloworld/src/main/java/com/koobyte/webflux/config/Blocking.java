@@ -0,0 +1,27 @@
+package com.koobyte.webflux.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记包含阻塞调用的处理方法（或者整个Controller），由{@link BlockingHandlerAdapter}在阻塞调度器（boundedElastic或虚拟线程，
+ * 见{@link BlockingSchedulerConfig}）上调用方法并订阅返回的Mono/Flux，不会占用Netty的事件循环线程。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Blocking {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+}
@@ -0,0 +1,72 @@
+package com.koobyte.webflux.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 开发和测试时检测事件循环等非阻塞线程上的阻塞调用（基于BlockHound），通过{@code webflux.blocking-detection}配置：
+ * <ul>
+ * <li>off：默认，不检测</li>
+ * <li>log：输出警告和调用栈，请求继续执行</li>
+ * <li>fail：抛出{@link BlockingOperationError}，请求失败</li>
+ * </ul>
+ * BlockHound通过Java Agent修改字节码，需要在应用启动时尽早安装，所以在spring.factories中注册，环境准备好后就执行；一个JVM只能安装一次。
+ * JDK 13及以上需要增加JVM参数{@code -XX:+AllowRedefinitionToAddDeleteMethods}。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class BlockingDetection implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(BlockingDetection.class);
+
+	private static final AtomicBoolean installed = new AtomicBoolean();
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+		String mode = event.getEnvironment().getProperty("webflux.blocking-detection", "off");
+		if ("off".equalsIgnoreCase(mode) || !installed.compareAndSet(false, true)) {
+			return;
+		}
+		boolean fail = "fail".equalsIgnoreCase(mode);
+		if (!fail && !"log".equalsIgnoreCase(mode)) {
+			throw new IllegalArgumentException("webflux.blocking-detection must be one of off, log, fail: " + mode);
+		}
+		try {
+			// 静态的install会加载classpath中的集成（Reactor、Netty），由它们标记哪些线程不允许阻塞
+			BlockHound.install(builder -> builder
+					// 提交任务到boundedElastic时为检查队列长度短暂持有锁，有竞争时会park；这个版本的Reactor集成还没有放行，
+					// 否则@Blocking的处理方法从事件循环切换到阻塞调度器时偶尔会被误报
+					.allowBlockingCallsInside("reactor.core.scheduler.BoundedElasticScheduler$BoundedScheduledExecutorService",
+							"ensureQueueCapacity")
+					.blockingMethodCallback(method -> {
+						BlockingOperationError error = new BlockingOperationError(method);
+						if (fail) {
+							throw error;
+						}
+						log.warn("Blocking call on thread {}", Thread.currentThread().getName(), error);
+					}));
+			log.info("Blocking call detection installed, mode: {}", mode);
+		} catch (RuntimeException | LinkageError e) {
+			// 通常是高版本JDK缺少-XX:+AllowRedefinitionToAddDeleteMethods
+			log.error("Failed to install blocking call detection, JDK 13+ requires -XX:+AllowRedefinitionToAddDeleteMethods", e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.koobyte.webflux.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerAdapter;
+import org.springframework.web.reactive.HandlerResult;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.annotation.Resource;
+
+/**
+ * 处理标注了{@link Blocking}的方法：排在{@link RequestMappingHandlerAdapter}之前，在阻塞调度器（见{@link BlockingSchedulerConfig}）
+ * 上委托它解析参数并调用方法，返回值是Mono/Flux时也在阻塞调度器上订阅，流中的阻塞操作同样不会占用事件循环线程。
+ * <p>
+ * 没有标注的方法仍然由RequestMappingHandlerAdapter直接在事件循环线程上处理。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class BlockingHandlerAdapter implements HandlerAdapter, Ordered {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private RequestMappingHandlerAdapter requestMappingHandlerAdapter;
+
+	@Resource
+	private Scheduler blockingScheduler;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public boolean supports(Object handler) {
+		if (!(handler instanceof HandlerMethod)) {
+			return false;
+		}
+		HandlerMethod handlerMethod = (HandlerMethod) handler;
+		return AnnotatedElementUtils.hasAnnotation(handlerMethod.getMethod(), Blocking.class)
+				|| AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), Blocking.class);
+	}
+
+	@Override
+	public Mono<HandlerResult> handle(ServerWebExchange exchange, Object handler) {
+		return Mono.defer(() -> requestMappingHandlerAdapter.handle(exchange, handler))
+				.map(this::offload)
+				.subscribeOn(blockingScheduler);
+	}
+
+	private HandlerResult offload(HandlerResult result) {
+		Object value = result.getReturnValue();
+		Object offloaded;
+		if (value instanceof Mono) {
+			offloaded = ((Mono<?>) value).subscribeOn(blockingScheduler);
+		} else if (value instanceof Flux) {
+			offloaded = ((Flux<?>) value).subscribeOn(blockingScheduler);
+		} else {
+			return result;
+		}
+		HandlerResult wrapped = new HandlerResult(result.getHandler(), offloaded, result.getReturnTypeSource(),
+				result.getBindingContext());
+		// 保留@ExceptionHandler的处理
+		if (result.hasExceptionHandler()) {
+			wrapped.setExceptionHandler(result::applyExceptionHandler);
+		}
+		return wrapped;
+	}
+}
@@ -0,0 +1,55 @@
+package com.koobyte.webflux.config;
+
+import com.koobyte.webflux.common.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 执行阻塞调用（{@link Blocking}的处理方法和返回的流）的调度器，通过{@code webflux.blocking-scheduler}配置：
+ * <ul>
+ * <li>bounded-elastic：默认，与Schedulers.boundedElastic()相同的有界线程池（CPU核数的10倍），线程用完后任务排队，
+ * 与其他使用全局boundedElastic的代码隔离</li>
+ * <li>virtual：每个任务一个虚拟线程，并发的阻塞调用数不受线程数限制，需要JDK 21，低版本JDK启动失败</li>
+ * </ul>
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class BlockingSchedulerConfig {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(BlockingSchedulerConfig.class);
+
+	//~ Instance fields
+
+	@Value("${webflux.blocking-scheduler:bounded-elastic}")
+	private Mode mode;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean(destroyMethod = "dispose")
+	public Scheduler blockingScheduler() {
+		log.info("Blocking scheduler: {}", mode);
+		if (mode == Mode.VIRTUAL) {
+			return Schedulers.fromExecutorService(VirtualThreads.newExecutor("blocking-virtual-"), "blocking-virtual");
+		}
+		return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+				Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "blocking");
+	}
+
+	// 调度器的类型
+	public enum Mode {
+		BOUNDED_ELASTIC, VIRTUAL
+	}
+}
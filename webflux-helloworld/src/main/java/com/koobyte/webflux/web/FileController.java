@@ -0,0 +1,200 @@
+package com.koobyte.webflux.web;
+
+import com.koobyte.webflux.config.Blocking;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件下载，用于导出的用户数据、静态资源包等大文件，支持Range请求（单个区间返回206，无法满足时返回416）和If-Modified-Since。
+ * <p>
+ * 按{@code files.transfer}选择传输方式：
+ * <ul>
+ * <li>zero-copy：默认，Reactor Netty通过{@link ZeroCopyHttpOutputMessage}调用sendfile，数据由内核直接从页缓存写到socket，
+ * 不经过JVM堆；响应不支持零拷贝时（例如被装饰过）退回mmap，启用了HTTPS或压缩时Netty自己会退回分块读取</li>
+ * <li>mmap：把文件映射到内存，按{@code files.chunk-size}切成直接内存的{@link DataBuffer}分块写出，没有堆上的拷贝，
+ * 但是读取未缓存的页时缺页中断会阻塞事件循环线程</li>
+ * <li>heap：读到堆内存的分块中再写出，与{@code Flux<String>}的方式一样经过堆，只用于对比</li>
+ * </ul>
+ * 查找文件和建立映射都是阻塞的文件系统调用，标注了{@link Blocking}，在阻塞调度器上执行。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@RestController
+@RequestMapping("/files")
+public class FileController {
+	//~ Static fields/constants/initializer
+
+	// 一次映射的最大长度，MappedByteBuffer最多2GB，大文件分成多段映射
+	private static final long MAX_REGION = 1L << 30;
+
+	private static final DataBufferFactory HEAP = new DefaultDataBufferFactory();
+
+	//~ Instance fields
+
+	@Value("${files.root:files}")
+	private String root;
+
+	@Value("${files.transfer:zero-copy}")
+	private Transfer transfer;
+
+	@Value("${files.chunk-size:1MB}")
+	private DataSize chunkSize;
+
+	// 一次映射的长度，测试中调小以覆盖分块跨过映射边界的情况
+	private long regionSize = MAX_REGION;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Blocking
+	@GetMapping("/{name}")
+	public Mono<Void> download(@PathVariable String name, ServerWebExchange exchange) throws IOException {
+		Path path = resolve(name);
+		long length = Files.size(path);
+		long lastModified = Files.getLastModifiedTime(path).toMillis();
+		if (exchange.checkNotModified(Instant.ofEpochMilli(lastModified))) {
+			return exchange.getResponse().setComplete();
+		}
+
+		HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+		ServerHttpResponse response = exchange.getResponse();
+		HttpHeaders headers = response.getHeaders();
+		headers.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM));
+		headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+		long start = 0;
+		long count = length;
+		if (rangeApplies(requestHeaders, lastModified)) {
+			List<HttpRange> ranges;
+			try {
+				ranges = requestHeaders.getRange();
+			} catch (IllegalArgumentException e) {
+				return unsatisfiable(response, length);
+			}
+			// 多个区间需要multipart/byteranges，客户端很少用到，按规范可以忽略Range返回完整内容
+			if (ranges.size() == 1) {
+				HttpRange range = ranges.get(0);
+				start = range.getRangeStart(length);
+				if (start >= length) {
+					return unsatisfiable(response, length);
+				}
+				count = range.getRangeEnd(length) - start + 1;
+				response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+				headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + length);
+			}
+		}
+		headers.setContentLength(count);
+		if (exchange.getRequest().getMethod() == HttpMethod.HEAD || count == 0) {
+			return response.setComplete();
+		}
+
+		switch (transfer) {
+			case ZERO_COPY:
+				if (response instanceof ZeroCopyHttpOutputMessage) {
+					return ((ZeroCopyHttpOutputMessage) response).writeWith(path, start, count);
+				}
+				// 不支持零拷贝时退回mmap
+				return response.writeWith(mapped(path, start, count, response.bufferFactory()));
+			case MMAP:
+				return response.writeWith(mapped(path, start, count, response.bufferFactory()));
+			default:
+				int chunk = (int) chunkSize.toBytes();
+				Flux<DataBuffer> body = DataBufferUtils.readAsynchronousFileChannel(
+						() -> AsynchronousFileChannel.open(path, StandardOpenOption.READ), start, HEAP, chunk);
+				return response.writeWith(DataBufferUtils.takeUntilByteCount(body, count));
+		}
+	}
+
+	// 只允许根目录下的普通文件，文件名中的..等不能跳出根目录
+	private Path resolve(String name) {
+		Path base = Paths.get(root).toAbsolutePath().normalize();
+		Path path = base.resolve(name).normalize();
+		if (!base.equals(path.getParent()) || !Files.isRegularFile(path)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found: " + name);
+		}
+		return path;
+	}
+
+	// If-Range与当前的Last-Modified不一致（或者是ETag，这里不生成ETag）说明文件已经变了，忽略Range返回完整内容
+	private static boolean rangeApplies(HttpHeaders headers, long lastModified) {
+		if (!headers.containsKey(HttpHeaders.IF_RANGE)) {
+			return true;
+		}
+		try {
+			return headers.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static Mono<Void> unsatisfiable(ServerHttpResponse response, long length) {
+		response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+		response.getHeaders().set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+		return response.setComplete();
+	}
+
+	// 在当前线程建立映射，关闭通道后映射仍然有效；写出时再按分块切片，切片共享映射的内存，不拷贝
+	private Flux<DataBuffer> mapped(Path path, long start, long count, DataBufferFactory factory) throws IOException {
+		List<MappedByteBuffer> regions = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			for (long position = start; position < start + count; position += regionSize) {
+				regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, start + count - position)));
+			}
+		}
+		int chunk = (int) chunkSize.toBytes();
+		return Flux.fromIterable(regions).concatMap(region -> Flux.<DataBuffer, Integer>generate(() -> 0, (offset, sink) -> {
+			int end = Math.min(offset + chunk, region.limit());
+			ByteBuffer slice = region.duplicate();
+			// 通过Buffer调用，在JDK 9以上编译后仍然能在JDK 8上运行
+			((Buffer) slice).position(offset).limit(end);
+			sink.next(factory.wrap(slice.slice()));
+			if (end == region.limit()) {
+				sink.complete();
+			}
+			return end;
+		}));
+	}
+
+	// 传输方式
+	public enum Transfer {
+		ZERO_COPY, MMAP, HEAP
+	}
+}
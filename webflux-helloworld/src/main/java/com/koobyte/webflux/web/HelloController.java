@@ -1,12 +1,17 @@
 package com.koobyte.webflux.web;
 
+import com.koobyte.webflux.config.Blocking;
+import com.koobyte.webflux.common.EventStreams;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import javax.annotation.Resource;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +28,11 @@ public class HelloController {
 
 	//~ Instance fields
 
+	@Resource
+	private EventStreams eventStreams;
+
+	@Resource
+	private Scheduler blockingScheduler;
 
 	//~ Constructors
 
@@ -30,6 +40,8 @@ public class HelloController {
 	//~ Methods
 
 	// 原始同步方法
+	// 方法中有阻塞调用，标注@Blocking后在阻塞调度器（boundedElastic或虚拟线程）上执行，不会占用事件循环线程
+	@Blocking
 	@GetMapping
 	public String sayHello() {
 		long start = System.currentTimeMillis();
@@ -41,6 +53,7 @@ public class HelloController {
 	}
 
 	// 返回mono，表示0个或1个数据
+	@Blocking
 	@GetMapping("/mono")
 	public Mono<String> monoHello() {
 		long start = System.currentTimeMillis();
@@ -63,8 +76,11 @@ public class HelloController {
 	// Flux表示一个或多个
 	// 响应Content-Type设置为：text/event-stream，表示按流返回数据，现象是一条条逐步返回数据
 	// 不设置，则是一次性返回所有元素
+	// map中的阻塞操作在订阅时才执行，@Blocking同样会在阻塞调度器上订阅返回的Flux
+	// 经过EventStreams加上心跳和有界缓冲
+	@Blocking
 	@GetMapping(value = "/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Flux<String> fluxHello() {
+	public Flux<ServerSentEvent<String>> fluxHello() {
 		long start = System.currentTimeMillis();
 		// 定义一个数组
 		String[] ss = {"a", "b", "c", "d"};
@@ -79,7 +95,9 @@ public class HelloController {
 		});
 		// Flux耗时：2 ms
 		System.out.println("Flux耗时：" + (System.currentTimeMillis() - start) + " ms");
-		return flux;
+		// EventStreams会预取多个元素，阻塞的map在单独的线程上执行，不会占住@Blocking处理下游请求的线程，元素仍然逐个推送
+		return eventStreams.stream("hello", flux.map(data -> ServerSentEvent.builder(data).build())
+				.subscribeOn(blockingScheduler));
 		/*:
 		每隔两秒输出一行：
 		data:数据元素：a
@@ -0,0 +1,84 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.config.Blocking;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BlockHound以fail模式安装时，标注了{@link Blocking}的处理方法在阻塞调度器上执行，可以阻塞；没有标注的在事件循环线程上执行，
+ * 阻塞调用抛出BlockingOperationError，请求返回500。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "webflux.blocking-detection=fail")
+@Import(BlockingDetectionTest.SleepController.class)
+public class BlockingDetectionTest {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private WebTestClient webTestClient;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	public void testBlockingHandlerMayBlock() {
+		webTestClient.get().uri("/test/sleep/blocking").exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).value(thread -> assertFalse(thread.startsWith("reactor-http-"), thread));
+	}
+
+	@Test
+	public void testUnannotatedHandlerFails() {
+		webTestClient.get().uri("/test/sleep/event-loop").exchange()
+				.expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+		// 不阻塞时同样在事件循环线程上正常处理
+		webTestClient.get().uri("/test/sleep/none").exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).value(thread -> assertTrue(thread.startsWith("reactor-http-"), thread));
+	}
+
+	// 返回处理请求的线程名
+	@RestController
+	@RequestMapping("/test/sleep")
+	static class SleepController {
+		@Blocking
+		@GetMapping("/blocking")
+		public Mono<String> blocking() throws InterruptedException {
+			TimeUnit.MILLISECONDS.sleep(10);
+			return Mono.just(Thread.currentThread().getName());
+		}
+
+		@GetMapping("/event-loop")
+		public Mono<String> eventLoop() throws InterruptedException {
+			TimeUnit.MILLISECONDS.sleep(10);
+			return Mono.just(Thread.currentThread().getName());
+		}
+
+		@GetMapping("/none")
+		public Mono<String> none() {
+			return Mono.just(Thread.currentThread().getName());
+		}
+	}
+}
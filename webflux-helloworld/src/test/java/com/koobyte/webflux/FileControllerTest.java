@@ -0,0 +1,212 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.web.FileController;
+import com.koobyte.webflux.web.FileController.Transfer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 在真实的服务端上测试/files/{name}，zero-copy只有Reactor Netty的响应支持；文件放在临时目录中，每种传输方式都跑一遍。
+ * 分块设为64KB，文件不是分块的整数倍。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "files.chunk-size=64KB")
+public class FileControllerTest {
+	//~ Static fields/constants/initializer
+
+	static final String NAME = "dump.bin";
+
+	@TempDir
+	static Path temp;
+
+	// files.root，目录外面放一个文件检查路径穿越
+	static Path root;
+
+	static byte[] data;
+
+	//~ Instance fields
+
+	@Resource
+	private WebTestClient webTestClient;
+
+	@Resource
+	private FileController fileController;
+
+	private WebTestClient client;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("files.root", () -> temp.resolve("files").toString());
+	}
+
+	@BeforeAll
+	static void createFiles() throws IOException {
+		root = Files.createDirectories(temp.resolve("files"));
+		data = new byte[3 * 1024 * 1024 + 123];
+		new Random(1).nextBytes(data);
+		Files.write(root.resolve(NAME), data);
+		Files.write(root.resolve("empty.txt"), new byte[0]);
+		Files.write(temp.resolve("outside.txt"), new byte[]{1});
+	}
+
+	@BeforeEach
+	public void init() {
+		client = webTestClient.mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 << 20)).build();
+	}
+
+	@AfterEach
+	public void reset() {
+		ReflectionTestUtils.setField(fileController, "transfer", Transfer.ZERO_COPY);
+		ReflectionTestUtils.setField(fileController, "regionSize", 1L << 30);
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testFull(Transfer transfer) {
+		use(transfer);
+		byte[] body = client.get().uri("/files/" + NAME).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentLength(data.length)
+				.expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+				.expectBody().returnResult().getResponseBody();
+		assertArrayEquals(data, body);
+		client.get().uri("/files/empty.txt").exchange().expectStatus().isOk().expectHeader().contentLength(0);
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testRange(Transfer transfer) {
+		use(transfer);
+		assertArrayEquals(Arrays.copyOfRange(data, 1000, 2_500_001), range("bytes=1000-2500000", 1000, 2_500_000));
+		// 后缀和不带结束位置的区间
+		assertArrayEquals(Arrays.copyOfRange(data, data.length - 10, data.length), range("bytes=-10", data.length - 10, data.length - 1));
+		assertArrayEquals(Arrays.copyOfRange(data, 3_000_000, data.length), range("bytes=3000000-", 3_000_000, data.length - 1));
+		// 多个区间忽略Range
+		client.get().uri("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=0-1,5-9").exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentLength(data.length);
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testUnsatisfiableRange(Transfer transfer) {
+		use(transfer);
+		for (String range : new String[]{"bytes=99999999-", "bytes=5-1"}) {
+			client.get().uri("/files/" + NAME).header(HttpHeaders.RANGE, range).exchange()
+					.expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+					.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */" + data.length)
+					.expectBody().isEmpty();
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testIfRange(Transfer transfer) throws IOException {
+		use(transfer);
+		// 文件已经变了，返回完整内容
+		byte[] body = client.get().uri("/files/" + NAME)
+				.header(HttpHeaders.RANGE, "bytes=0-1")
+				.header(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(HttpHeaders.CONTENT_RANGE)
+				.expectBody().returnResult().getResponseBody();
+		assertArrayEquals(data, body);
+		client.get().uri("/files/" + NAME)
+				.header(HttpHeaders.RANGE, "bytes=0-1")
+				.header(HttpHeaders.IF_RANGE, lastModified().getFirst(HttpHeaders.LAST_MODIFIED))
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-1/" + data.length);
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testNotModifiedAndHead(Transfer transfer) throws IOException {
+		use(transfer);
+		ZonedDateTime lastModified = ZonedDateTime.ofInstant(Files.getLastModifiedTime(root.resolve(NAME)).toInstant(), ZoneOffset.UTC);
+		client.get().uri("/files/" + NAME).ifModifiedSince(lastModified).exchange()
+				.expectStatus().isNotModified()
+				.expectBody().isEmpty();
+		client.head().uri("/files/" + NAME).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentLength(data.length)
+				.expectBody().isEmpty();
+		client.head().uri("/files/" + NAME).header(HttpHeaders.RANGE, "bytes=10-19").exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectHeader().contentLength(10)
+				.expectBody().isEmpty();
+	}
+
+	@ParameterizedTest
+	@EnumSource(Transfer.class)
+	public void testTraversal(Transfer transfer) {
+		use(transfer);
+		client.get().uri("/files/nope.bin").exchange().expectStatus().isNotFound();
+		client.get().uri("/files/..").exchange().expectStatus().isNotFound();
+		client.get().uri("/files/%2E%2E%2Foutside.txt").exchange().expectStatus().isNotFound();
+		client.get().uri("/files/..%2Foutside.txt").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	public void testMmapAcrossRegions() {
+		use(Transfer.MMAP);
+		// 映射的长度不是分块的整数倍，分块在每段的末尾变短，下一段从新的分块开始
+		ReflectionTestUtils.setField(fileController, "regionSize", 1_000_003L);
+		byte[] body = client.get().uri("/files/" + NAME).exchange()
+				.expectStatus().isOk()
+				.expectBody().returnResult().getResponseBody();
+		assertArrayEquals(data, body);
+		assertArrayEquals(Arrays.copyOfRange(data, 999_000, 2_001_001), range("bytes=999000-2001000", 999_000, 2_001_000));
+	}
+
+	private void use(Transfer transfer) {
+		ReflectionTestUtils.setField(fileController, "transfer", transfer);
+	}
+
+	private byte[] range(String range, long first, long last) {
+		return client.get().uri("/files/" + NAME).header(HttpHeaders.RANGE, range).exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + data.length)
+				.expectHeader().contentLength(last - first + 1)
+				.expectBody().returnResult().getResponseBody();
+	}
+
+	private static HttpHeaders lastModified() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setLastModified(Files.getLastModifiedTime(root.resolve(NAME)).toMillis());
+		return headers;
+	}
+}
@@ -0,0 +1,442 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.dao.UserDao;
+import com.koobyte.webflux.domain.AgeBucket;
+import com.koobyte.webflux.domain.User;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 内存中的{@link UserDao}，压测时代替MongoDB，放在真实的服务层后面：请求仍然经过SingleFlight、批量加载和变更推送，
+ * 只是没有数据库往返，耗时不受数据库影响。
+ * <p>
+ * 按id排序保存用户的副本，读写语义与MongoDB一致：insert时id重复抛出{@link DuplicateKeyException}，没有id时与
+ * Long类型的id一样无法生成；Example只比较探针上不为空的属性，支持字符串匹配方式和忽略大小写。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class InMemoryUserDao implements UserDao {
+	//~ Static fields/constants/initializer
+
+	// 唯一索引冲突的错误码，与MongoDB相同
+	private static final int DUPLICATE_KEY = 11000;
+
+	//~ Instance fields
+
+	private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public <S extends User> Mono<S> insert(S user) {
+		return Mono.fromCallable(() -> {
+			if (users.putIfAbsent(idOf(user), copy(user)) != null) {
+				throw new DuplicateKeyException("E11000 duplicate key error, _id: " + user.getId());
+			}
+			return user;
+		});
+	}
+
+	@Override
+	public <S extends User> Flux<S> insert(Iterable<S> users) {
+		return Flux.fromIterable(users).concatMap(this::insert);
+	}
+
+	@Override
+	public <S extends User> Flux<S> insert(Publisher<S> users) {
+		return Flux.from(users).concatMap(this::insert);
+	}
+
+	@Override
+	public <S extends User> Mono<S> save(S user) {
+		return Mono.fromCallable(() -> {
+			users.put(idOf(user), copy(user));
+			return user;
+		});
+	}
+
+	@Override
+	public <S extends User> Flux<S> saveAll(Iterable<S> users) {
+		return Flux.fromIterable(users).concatMap(this::save);
+	}
+
+	@Override
+	public <S extends User> Flux<S> saveAll(Publisher<S> users) {
+		return Flux.from(users).concatMap(this::save);
+	}
+
+	@Override
+	public Mono<User> findById(Long id) {
+		Assert.notNull(id, "The given id must not be null!");
+		return Mono.fromCallable(() -> copy(users.get(id)));
+	}
+
+	@Override
+	public Mono<User> findById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::findById);
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Long id) {
+		Assert.notNull(id, "The given id must not be null!");
+		return Mono.fromCallable(() -> users.containsKey(id));
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::existsById);
+	}
+
+	@Override
+	public Flux<User> findAll() {
+		return Flux.defer(() -> Flux.fromIterable(users.values())).map(InMemoryUserDao::copy);
+	}
+
+	@Override
+	public Flux<User> findAll(Sort sort) {
+		return findAll().sort(comparator(sort));
+	}
+
+	@Override
+	public Flux<User> findAllById(Iterable<Long> ids) {
+		// 与$in查询一样按存储顺序返回，重复的id只返回一次
+		return Flux.defer(() -> {
+			List<User> found = new ArrayList<>();
+			for (Long id : new TreeSet<>(toList(ids))) {
+				User user = users.get(id);
+				if (user != null) {
+					found.add(copy(user));
+				}
+			}
+			return Flux.fromIterable(found);
+		});
+	}
+
+	@Override
+	public Flux<User> findAllById(Publisher<Long> ids) {
+		return Flux.from(ids).collectList().flatMapMany(this::findAllById);
+	}
+
+	@Override
+	public Mono<Long> count() {
+		return Mono.fromCallable(() -> (long) users.size());
+	}
+
+	@Override
+	public Mono<Void> deleteById(Long id) {
+		Assert.notNull(id, "The given id must not be null!");
+		return Mono.fromRunnable(() -> users.remove(id));
+	}
+
+	@Override
+	public Mono<Void> deleteById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::deleteById);
+	}
+
+	@Override
+	public Mono<Void> delete(User user) {
+		return deleteById(idOf(user));
+	}
+
+	@Override
+	public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+		return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<? extends User> users) {
+		return Flux.fromIterable(users).concatMap(this::delete).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Publisher<? extends User> users) {
+		return Flux.from(users).concatMap(this::delete).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll() {
+		return Mono.fromRunnable(users::clear);
+	}
+
+	@Override
+	public <S extends User> Mono<S> findOne(Example<S> example) {
+		return findAll(example).collectList().flatMap(found -> {
+			if (found.size() > 1) {
+				return Mono.error(new IncorrectResultSizeDataAccessException(1, found.size()));
+			}
+			return Mono.justOrEmpty(found.isEmpty() ? null : found.get(0));
+		});
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <S extends User> Flux<S> findAll(Example<S> example) {
+		Predicate<User> matcher = matcher(example);
+		return findAll().filter(matcher).map(user -> (S) user);
+	}
+
+	@Override
+	public <S extends User> Flux<S> findAll(Example<S> example, Sort sort) {
+		return findAll(example).sort(comparator(sort));
+	}
+
+	@Override
+	public <S extends User> Mono<Long> count(Example<S> example) {
+		return findAll(example).count();
+	}
+
+	@Override
+	public <S extends User> Mono<Boolean> exists(Example<S> example) {
+		return findAll(example).hasElements();
+	}
+
+	@Override
+	public Flux<User> findByIdGreaterThan(Long id, Pageable pageable) {
+		Flux<User> users = Flux.defer(() -> Flux.fromIterable(this.users.tailMap(id, false).values()))
+				.map(InMemoryUserDao::copy);
+		if (pageable.getSort().isSorted()) {
+			users = users.sort(comparator(pageable.getSort()));
+		}
+		return pageable.isPaged() ? users.skip(pageable.getOffset()).take(pageable.getPageSize()) : users;
+	}
+
+	@Override
+	public Mono<Outcome> bulkWrite(List<User> batch, boolean upsert) {
+		// 无序写入，失败的文档记录在errors中，不影响其他文档
+		return Mono.fromCallable(() -> {
+			int inserted = 0;
+			int matched = 0;
+			int modified = 0;
+			List<BulkWriteUpsert> upserts = new ArrayList<>();
+			List<BulkWriteInsert> inserts = new ArrayList<>();
+			List<BulkWriteError> errors = new ArrayList<>();
+			for (int i = 0; i < batch.size(); i++) {
+				User user = batch.get(i);
+				Long id = idOf(user);
+				if (upsert) {
+					User old = users.put(id, copy(user));
+					if (old == null) {
+						upserts.add(new BulkWriteUpsert(i, new BsonInt64(id)));
+					} else {
+						matched++;
+						if (!Objects.equals(old.getName(), user.getName()) || !Objects.equals(old.getAge(), user.getAge())) {
+							modified++;
+						}
+					}
+				} else if (users.putIfAbsent(id, copy(user)) == null) {
+					inserted++;
+					inserts.add(new BulkWriteInsert(i, new BsonInt64(id)));
+				} else {
+					errors.add(new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key error, _id: " + id,
+							new BsonDocument(), i));
+				}
+			}
+			return new Outcome(BulkWriteResult.acknowledged(inserted, matched, 0, modified, upserts, inserts), errors);
+		});
+	}
+
+	@Override
+	public Flux<User> streamAll(Integer batchSize) {
+		return findAll();
+	}
+
+	@Override
+	public Flux<User> streamAllAfter(long after, Integer batchSize) {
+		return Flux.defer(() -> Flux.fromIterable(users.tailMap(after, false).values())).map(InMemoryUserDao::copy);
+	}
+
+	@Override
+	public Mono<User> findAndReplace(User user) {
+		return Mono.fromCallable(() -> users.replace(idOf(user), copy(user)));
+	}
+
+	@Override
+	public Mono<User> findAndRemove(Long id) {
+		Assert.notNull(id, "The given id must not be null!");
+		return Mono.fromCallable(() -> users.remove(id));
+	}
+
+	@Override
+	public Flux<Map<String, Object>> findAllFields(Collection<String> fields) {
+		checkFields(fields);
+		return findAll().map(user -> project(user, fields));
+	}
+
+	@Override
+	public Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields) {
+		checkFields(fields);
+		return findById(id).map(user -> project(user, fields));
+	}
+
+	@Override
+	public Flux<AgeBucket> countByAge(int width) {
+		// bucket = age - age % width，即区间的下界，按下界升序
+		return Flux.defer(() -> {
+			Map<Long, Long> counts = new TreeMap<>();
+			for (User user : users.values()) {
+				if (user.getAge() != null) {
+					counts.merge((long) (user.getAge() - user.getAge() % width), 1L, Long::sum);
+				}
+			}
+			return Flux.fromIterable(counts.entrySet())
+					.map(bucket -> new AgeBucket(bucket.getKey(), bucket.getKey() + width, bucket.getValue()));
+		});
+	}
+
+	// 与Long类型的@MongoId一样，没有id时无法生成
+	private static Long idOf(User user) {
+		if (user.getId() == null) {
+			throw new InvalidDataAccessApiUsageException("Cannot autogenerate id of type java.lang.Long for entity of type "
+					+ User.class.getName());
+		}
+		return user.getId();
+	}
+
+	// 保存和返回的都是副本，与数据库一样调用方修改对象不会影响已经保存的数据
+	private static User copy(User user) {
+		if (user == null) {
+			return null;
+		}
+		User copy = new User();
+		copy.setId(user.getId());
+		copy.setName(user.getName());
+		copy.setAge(user.getAge());
+		return copy;
+	}
+
+	private static void checkFields(Collection<String> fields) {
+		Assert.notEmpty(fields, "Fields must not be empty");
+		Assert.isTrue(FIELDS.containsAll(fields), () -> "Unknown fields: " + fields);
+	}
+
+	// 按请求的字段顺序输出
+	private static Map<String, Object> project(User user, Collection<String> fields) {
+		BeanWrapper wrapper = new BeanWrapperImpl(user);
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String field : fields) {
+			map.put(field, wrapper.getPropertyValue(field));
+		}
+		return map;
+	}
+
+	private static <T> List<T> toList(Iterable<T> iterable) {
+		List<T> list = new ArrayList<>();
+		iterable.forEach(list::add);
+		return list;
+	}
+
+	// 与MongoDB一样，升序时null排在最前面
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Comparator<User> comparator(Sort sort) {
+		Comparator<User> comparator = (a, b) -> 0;
+		for (Sort.Order order : sort) {
+			Comparator<User> property = Comparator.comparing(user -> {
+				Object value = new BeanWrapperImpl(user).getPropertyValue(order.getProperty());
+				return (Comparable) (order.isIgnoreCase() && value instanceof String ? ((String) value).toLowerCase() : value);
+			}, Comparator.nullsFirst(Comparator.naturalOrder()));
+			comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+		}
+		return comparator;
+	}
+
+	private static Predicate<User> matcher(Example<? extends User> example) {
+		ExampleMatcher matcher = example.getMatcher();
+		ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+		BeanWrapper probe = new BeanWrapperImpl(example.getProbe());
+		List<Predicate<BeanWrapper>> conditions = new ArrayList<>();
+		for (PropertyDescriptor descriptor : probe.getPropertyDescriptors()) {
+			String path = descriptor.getName();
+			if ("class".equals(path) || matcher.isIgnoredPath(path)) {
+				continue;
+			}
+			Object expected = accessor.getValueTransformerForPath(path)
+					.apply(Optional.ofNullable(probe.getPropertyValue(path)))
+					.orElse(null);
+			if (expected == null) {
+				// 默认忽略为空的属性，INCLUDE时要求同样为空
+				if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+					conditions.add(candidate -> candidate.getPropertyValue(path) == null);
+				}
+			} else if (expected instanceof String) {
+				conditions.add(candidate -> matches((String) expected, candidate.getPropertyValue(path),
+						accessor.getStringMatcherForPath(path), accessor.isIgnoreCaseForPath(path)));
+			} else {
+				conditions.add(candidate -> expected.equals(candidate.getPropertyValue(path)));
+			}
+		}
+		boolean all = matcher.isAllMatching();
+		return user -> {
+			if (conditions.isEmpty()) {
+				return true;
+			}
+			BeanWrapper candidate = new BeanWrapperImpl(user);
+			return all ? conditions.stream().allMatch(condition -> condition.test(candidate))
+					: conditions.stream().anyMatch(condition -> condition.test(candidate));
+		};
+	}
+
+	private static boolean matches(String expected, Object actual, ExampleMatcher.StringMatcher stringMatcher,
+			boolean ignoreCase) {
+		if (!(actual instanceof String)) {
+			return false;
+		}
+		String value = (String) actual;
+		if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+			return Pattern.compile(expected, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(value).find();
+		}
+		if (ignoreCase) {
+			expected = expected.toLowerCase();
+			value = value.toLowerCase();
+		}
+		switch (stringMatcher) {
+			case STARTING:
+				return value.startsWith(expected);
+			case ENDING:
+				return value.endsWith(expected);
+			case CONTAINING:
+				return value.contains(expected);
+			default:
+				return value.equals(expected);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.common.LoadGenerator;
+import com.koobyte.webflux.common.LoadGenerator.Measurement;
+import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.service.UserBatchLoader;
+import com.koobyte.webflux.service.UserChangeFeed;
+import com.koobyte.webflux.service.UserChangeStream;
+import com.koobyte.webflux.service.UserIdAllocator;
+import com.koobyte.webflux.service.impl.UserCrudServiceImpl;
+import com.koobyte.webflux.web.UserCrudController;
+import com.koobyte.webflux.web.UserHandler;
+import com.koobyte.webflux.web.UserRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 对比注解式（{@link UserCrudController}）和函数式（{@link UserRouter}）两种/user接口在高并发下的开销：吞吐量、延迟
+ * （HdrHistogram的p50/p99/p999）、每个请求在服务端事件循环线程上消耗的CPU时间和分配的内存。
+ * <p>
+ * 在当前JVM中依次以两种方式启动只包含/user接口的应用，服务层是真实的{@link UserCrudServiceImpl}，Repository用
+ * {@link InMemoryUserDao}代替，差异只来自请求的分发、参数解析和返回值处理。ReactiveMongoTemplate仍然创建，只有id分配和
+ * change stream使用，压测的请求都带有id，不会用到；id分配在启动时预留id段，连接指向不可用的端口，不会写入任何MongoDB，
+ * 预留失败由分配器忽略。参数依次为：并发数（默认64），每个场景的测量秒数（默认10），内存中的用户数（默认10000）。
+ * 每种方式的每个场景先预热一半的时间。两种方式共用JVM，先运行的一方要承担Netty等公共代码的JIT编译，结果明显偏低，
+ * 可以用第4个参数重复运行，例如annotated,functional,annotated,functional，以后面两轮为准；每个请求分配的内存受顺序的影响较小。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserApiBenchmark {
+	//~ Static fields/constants/initializer
+
+	// 服务端默认事件循环线程名的前缀，客户端使用单独的线程，不计入
+	private static final Predicate<Thread> SERVER_LOOPS = LoadGenerator.named("reactor-http-");
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) {
+		int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		Duration duration = Duration.ofSeconds(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+		int users = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		String[] styles = (args.length > 3 ? args[3] : "annotated,functional").split(",");
+
+		Map<String, Function<WebClient, Mono<?>>> scenarios = new LinkedHashMap<>();
+		scenarios.put("GET /user/{id}", client -> client.get()
+				.uri("/user/{id}", ThreadLocalRandom.current().nextLong(1, users + 1))
+				.retrieve()
+				.toBodilessEntity());
+		scenarios.put("GET /user/page", client -> client.get()
+				.uri("/user/page?limit=20")
+				.retrieve()
+				.toBodilessEntity());
+		scenarios.put("PUT /user", client -> {
+			User user = new User();
+			user.setId(ThreadLocalRandom.current().nextLong(1, users + 1));
+			user.setName("benchmark");
+			user.setAge(30);
+			return client.put().uri("/user").bodyValue(user).retrieve().toBodilessEntity();
+		});
+
+		List<Result> results = new ArrayList<>();
+		try (LoadGenerator load = new LoadGenerator(concurrency)) {
+			for (String style : styles) {
+				ConfigurableApplicationContext app = SpringApplication.run(BenchmarkApplication.class, "--server.port=0",
+						"--deadline.default=0", "--user.api.style=" + style, "--benchmark.users=" + users,
+						"--spring.data.mongodb.host=127.0.0.1", "--spring.data.mongodb.port=1",
+						"--spring.data.mongodb.auto-index-creation=false", "--logging.level.root=warn",
+						"--logging.level.org.springframework.data.mongodb.core.ReactiveMongoTemplate=off");
+				try {
+					WebClient client = load.client(app);
+					for (Map.Entry<String, Function<WebClient, Mono<?>>> scenario : scenarios.entrySet()) {
+						// 预热：JIT编译、建立连接
+						LoadGenerator.run(() -> scenario.getValue().apply(client), concurrency, duration.dividedBy(2), null);
+						Result result = new Result(style, scenario.getKey(), LoadGenerator.run(
+								() -> scenario.getValue().apply(client), concurrency, duration, SERVER_LOOPS));
+						results.add(result);
+						System.out.println(result);
+					}
+				} finally {
+					app.close();
+				}
+			}
+		}
+
+		System.out.println();
+		System.out.printf("%-11s %-16s %10s %9s %9s %9s %12s %12s %7s%n", "style", "scenario", "req/s", "p50(ms)",
+				"p99(ms)", "p999(ms)", "cpu(us/req)", "alloc(B/req)", "errors");
+		results.forEach(System.out::println);
+	}
+
+	// 只包含/user接口和服务层的应用，两种方式按user.api.style生效其中一种
+	@SpringBootConfiguration
+	@EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+			MongoRepositoriesAutoConfiguration.class, MongoReactiveRepositoriesAutoConfiguration.class})
+	@Import({UserCrudController.class, UserRouter.class, UserHandler.class, UserCrudServiceImpl.class,
+			UserBatchLoader.class, UserChangeFeed.class, UserChangeStream.class, UserIdAllocator.class})
+	static class BenchmarkApplication {
+		@Bean
+		public InMemoryUserDao userDao(@Value("${benchmark.users}") int users) {
+			InMemoryUserDao userDao = new InMemoryUserDao();
+			for (long id = 1; id <= users; id++) {
+				User user = new User();
+				user.setId(id);
+				user.setName("user" + id);
+				user.setAge((int) (id % 100));
+				userDao.insert(user).block();
+			}
+			return userDao;
+		}
+	}
+
+	// 一种方式的一个场景的测量结果
+	private static final class Result {
+		final String style;
+		final String scenario;
+		final Measurement measurement;
+
+		Result(String style, String scenario, Measurement measurement) {
+			this.style = style;
+			this.scenario = scenario;
+			this.measurement = measurement;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-11s %-16s %10.0f %9.2f %9.2f %9.2f %12.1f %12.0f %7d", style, scenario,
+					measurement.throughput(), measurement.percentile(50), measurement.percentile(99),
+					measurement.percentile(99.9), measurement.cpuPerRequest(), measurement.allocatedPerRequest(),
+					measurement.errors);
+		}
+	}
+}
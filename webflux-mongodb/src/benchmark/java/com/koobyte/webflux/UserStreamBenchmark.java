@@ -0,0 +1,86 @@
+package com.koobyte.webflux;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比不同游标批次大小下/user/stream/all的首字节时间（TTFB）和吞吐量，需要先启动应用并准备好数据。
+ * <p>
+ * 参数依次为：服务地址（默认http://localhost:8080），逗号分隔的批次大小（默认16,64,256,1024,4096），每个批次大小的测量次数（默认5）。
+ * 每个批次大小先预热一次，结果取中位数。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserStreamBenchmark {
+	//~ Static fields/constants/initializer
+
+	private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT =
+			new ParameterizedTypeReference<ServerSentEvent<String>>() {
+			};
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public static void main(String[] args) {
+		String url = args.length > 0 ? args[0] : "http://localhost:8080";
+		int[] batchSizes = Arrays.stream((args.length > 1 ? args[1] : "16,64,256,1024,4096").split(","))
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		WebClient client = WebClient.create(url);
+		System.out.printf("%10s %10s %12s %12s %14s%n", "batchSize", "rows", "ttfb(ms)", "total(ms)", "rows/s");
+		for (int batchSize : batchSizes) {
+			// 预热
+			run(client, batchSize);
+			long[] ttfb = new long[runs];
+			long[] total = new long[runs];
+			long rows = 0;
+			for (int i = 0; i < runs; i++) {
+				long[] result = run(client, batchSize);
+				ttfb[i] = result[0];
+				total[i] = result[1];
+				rows = result[2];
+			}
+			long totalMedian = median(total);
+			System.out.printf("%10d %10d %12.2f %12.2f %14.0f%n", batchSize, rows, median(ttfb) / 1e6, totalMedian / 1e6,
+					rows * 1e9 / Math.max(totalMedian, 1));
+		}
+	}
+
+	// 返回首个事件的耗时、总耗时（纳秒）和读取的行数
+	private static long[] run(WebClient client, int batchSize) {
+		AtomicLong first = new AtomicLong();
+		long start = System.nanoTime();
+		Long rows = client.get()
+				.uri(builder -> builder.path("/user/stream/all").queryParam("batchSize", batchSize).build())
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.retrieve()
+				.bodyToFlux(EVENT)
+				.doOnNext(event -> first.compareAndSet(0, System.nanoTime()))
+				.count()
+				.block();
+		long end = System.nanoTime();
+		long firstAt = first.get() == 0 ? end : first.get();
+		return new long[]{firstAt - start, end - start, rows == null ? 0 : rows};
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
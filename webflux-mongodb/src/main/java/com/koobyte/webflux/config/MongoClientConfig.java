@@ -0,0 +1,34 @@
+package com.koobyte.webflux.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MongoClient由Spring Boot根据{@code spring.data.mongodb.*}创建，这里注册{@link SlowCommandListener}监听执行的命令。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class MongoClientConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	@ConditionalOnProperty(name = "user.slow-query.enabled", matchIfMissing = true)
+	public MongoClientSettingsBuilderCustomizer slowCommandListenerCustomizer(SlowCommandListener slowCommandListener) {
+		return builder -> builder.addCommandListener(slowCommandListener);
+	}
+}
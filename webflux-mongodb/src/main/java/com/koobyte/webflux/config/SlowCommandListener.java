@@ -0,0 +1,262 @@
+package com.koobyte.webflux.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢命令监听：服务端执行时间超过{@code user.slow-query.threshold}的查询命令（find、aggregate、count、distinct），
+ * 用explain（queryPlanner）取得执行计划，胜出的计划中有COLLSCAN（全集合扫描）时输出警告，最近的慢命令和执行计划可以通过
+ * /stats/slow-queries查看。
+ * <p>
+ * 注册在MongoClient上，位于所有Repository之下，派生查询、MongoTemplate和聚合执行的命令都能看到；流式查询只统计每次
+ * find/getMore在服务端的耗时，不包括客户端消费的时间。
+ * <p>
+ * 执行计划按命令的形状（集合、字段和操作符，不含具体的值）缓存{@code user.slow-query.explain-ttl}，同一种查询反复变慢时不会每次
+ * 都explain；同时进行的explain不超过{@code user.slow-query.explain-concurrency}个，超过时只记录慢命令。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class SlowCommandListener implements CommandListener {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(SlowCommandListener.class);
+
+	// 只explain读命令：commandStarted在驱动的线程上同步执行，每个命令都要复制一份；写命令（update、delete、findAndModify）
+	// 带着要写入的文档，批量写入时可能很大，复制的开销落在所有写入上
+	private static final Set<String> EXPLAINABLE = new HashSet<>(Arrays.asList("find", "aggregate", "count", "distinct"));
+
+	// explain内部的命令不能带这些字段
+	private static final Set<String> SESSION_FIELDS = new HashSet<>(Arrays.asList(
+			"lsid", "txnNumber", "readConcern", "writeConcern", "autocommit", "startTransaction"));
+
+	// 缓存的执行计划的条数
+	private static final int MAX_PLANS = 1000;
+
+	// 命令的形状中代替具体的值
+	private static final BsonString VALUE = new BsonString("?");
+
+	//~ Instance fields
+
+	// MongoClient创建时还没有数据库工厂，延迟获取
+	@Resource
+	private ObjectProvider<ReactiveMongoDatabaseFactory> databaseFactory;
+
+	@Value("${user.slow-query.threshold:100ms}")
+	private Duration threshold;
+
+	@Value("${user.slow-query.explain:true}")
+	private boolean explain;
+
+	@Value("${user.slow-query.explain-ttl:10m}")
+	private Duration explainTtl;
+
+	@Value("${user.slow-query.explain-concurrency:2}")
+	private int explainConcurrency;
+
+	// 保留最近的慢命令条数
+	@Value("${user.slow-query.history:50}")
+	private int history;
+
+	// 执行中的命令，命令结束时只有耗时没有命令内容
+	private final Map<Integer, BsonDocument> running = new ConcurrentHashMap<>();
+	private final Deque<Map<String, Object>> recent = new ConcurrentLinkedDeque<>();
+	private final LongAdder slowQueries = new LongAdder();
+	private final LongAdder collectionScans = new LongAdder();
+	private final LongAdder explainsSkipped = new LongAdder();
+
+	// 按数据库和命令的形状缓存执行计划，缓存的是explain中的Future，同一种查询同时变慢时只执行一次
+	private AsyncCache<String, Document> plans;
+	private Semaphore explains;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		plans = Caffeine.newBuilder()
+				.maximumSize(MAX_PLANS)
+				.expireAfterWrite(explainTtl)
+				.buildAsync();
+		explains = new Semaphore(explainConcurrency);
+	}
+
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+		if (EXPLAINABLE.contains(event.getCommandName())) {
+			// 事件中的命令可能引用驱动的缓冲区，回调结束后不能再使用，需要复制
+			running.put(event.getRequestId(), event.getCommand().clone());
+		}
+	}
+
+	@Override
+	public void commandSucceeded(CommandSucceededEvent event) {
+		BsonDocument command = running.remove(event.getRequestId());
+		long millis = event.getElapsedTime(TimeUnit.MILLISECONDS);
+		if (command == null || millis < threshold.toMillis()) {
+			return;
+		}
+		slowQueries.increment();
+		// OP_MSG协议的命令中带有数据库名
+		String database = command.isString("$db") ? command.getString("$db").getValue() : null;
+		if (!explain) {
+			record(database, command, millis, null, null);
+			return;
+		}
+		plan(database, command)
+				.subscribe(plan -> record(database, command, millis, plan, null),
+						e -> record(database, command, millis, null, e.getMessage()));
+	}
+
+	@Override
+	public void commandFailed(CommandFailedEvent event) {
+		running.remove(event.getRequestId());
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("threshold", threshold.toMillis());
+		map.put("slowQueries", slowQueries.sum());
+		map.put("collectionScans", collectionScans.sum());
+		map.put("cachedPlans", plans.synchronous().estimatedSize());
+		map.put("explainsSkipped", explainsSkipped.sum());
+		map.put("recent", new ArrayList<>(recent));
+		return map;
+	}
+
+	// explain失败或者被跳过时Future以异常结束，Caffeine不缓存，下次变慢时重试
+	private Mono<Document> plan(String database, BsonDocument command) {
+		BsonDocument inner = new BsonDocument();
+		for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+			if (!entry.getKey().startsWith("$") && !SESSION_FIELDS.contains(entry.getKey())) {
+				inner.put(entry.getKey(), entry.getValue());
+			}
+		}
+		String key = database + " " + shape(inner, true).asDocument().toJson();
+		return Mono.fromFuture(() -> plans.get(key, (k, executor) -> {
+			if (!explains.tryAcquire()) {
+				explainsSkipped.increment();
+				CompletableFuture<Document> skipped = new CompletableFuture<>();
+				skipped.completeExceptionally(new IllegalStateException("Too many concurrent explains, skipped"));
+				return skipped;
+			}
+			return explain(database, inner).doFinally(signal -> explains.release()).toFuture();
+		}));
+	}
+
+	private Mono<Document> explain(String database, BsonDocument inner) {
+		BsonDocument explainCommand = new BsonDocument("explain", inner).append("verbosity", new BsonString("queryPlanner"));
+		ReactiveMongoDatabaseFactory factory = databaseFactory.getObject();
+		return (database == null ? factory.getMongoDatabase() : factory.getMongoDatabase(database))
+				.flatMap(db -> Mono.from(db.runCommand(explainCommand)));
+	}
+
+	private void record(String database, BsonDocument command, long millis, Document plan, String error) {
+		boolean collectionScan = plan != null && hasCollectionScan(plan, false);
+		String json = command.toJson();
+		if (collectionScan) {
+			collectionScans.increment();
+			log.warn("Collection scan in slow command ({} ms) on {}: {}", millis, database, json);
+		} else {
+			log.info("Slow command ({} ms) on {}: {}", millis, database, json);
+		}
+		Map<String, Object> entry = new LinkedHashMap<>();
+		entry.put("database", database);
+		entry.put("command", json);
+		entry.put("millis", millis);
+		entry.put("collectionScan", collectionScan);
+		entry.put("plan", plan == null ? null : plan.get("queryPlanner"));
+		entry.put("explainError", error);
+		recent.addFirst(entry);
+		// 并发时可能短暂超过上限
+		while (recent.size() > history) {
+			recent.pollLast();
+		}
+	}
+
+	// 保留字段名和操作符，值换成?；第一个字段是命令名，值是集合名，保留。只有值的数组（例如$in）长度不同也是同一种查询，换成一个?；
+	// 文档的数组（聚合的pipeline、$or的条件）保留每个元素的形状
+	private static BsonValue shape(BsonValue value, boolean command) {
+		if (value.isDocument()) {
+			BsonDocument shape = new BsonDocument();
+			for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+				shape.put(entry.getKey(), command && shape.isEmpty() ? entry.getValue() : shape(entry.getValue(), false));
+			}
+			return shape;
+		}
+		if (value.isArray()) {
+			BsonArray shape = new BsonArray();
+			for (BsonValue item : value.asArray()) {
+				if (item.isDocument() || item.isArray()) {
+					shape.add(shape(item, false));
+				} else if (!shape.contains(VALUE)) {
+					shape.add(VALUE);
+				}
+			}
+			return shape;
+		}
+		return VALUE;
+	}
+
+	// 只检查胜出的计划，聚合的执行计划嵌在各个stage中，需要递归查找
+	private static boolean hasCollectionScan(Object value, boolean inWinningPlan) {
+		if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (inWinningPlan && "stage".equals(entry.getKey()) && "COLLSCAN".equals(entry.getValue())) {
+					return true;
+				}
+				if ("rejectedPlans".equals(entry.getKey())) {
+					continue;
+				}
+				if (hasCollectionScan(entry.getValue(), inWinningPlan || "winningPlan".equals(entry.getKey()))) {
+					return true;
+				}
+			}
+		} else if (value instanceof Iterable) {
+			for (Object item : (Iterable<?>) value) {
+				if (hasCollectionScan(item, inWinningPlan)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
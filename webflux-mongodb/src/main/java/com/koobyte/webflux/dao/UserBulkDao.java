@@ -0,0 +1,51 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 用户批量写入，使用无序的bulkWrite，一个批次只需要一次往返，单条失败（例如id重复）不影响其他文档，
+ * 作为{@link UserDao}的自定义片段，由{@link UserBulkDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserBulkDao {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 批量写入一批用户。
+	 *
+	 * @param upsert true时按id替换或插入（没有id的仍然插入），false时全部插入
+	 * @return 写入结果，部分文档失败时也正常返回
+	 */
+	Mono<Outcome> bulkWrite(List<User> users, boolean upsert);
+
+	// 一个批次的写入结果和失败的文档
+	final class Outcome {
+		private final BulkWriteResult result;
+		private final List<BulkWriteError> errors;
+
+		public Outcome(BulkWriteResult result, List<BulkWriteError> errors) {
+			this.result = result;
+			this.errors = errors;
+		}
+
+		public BulkWriteResult getResult() {
+			return result;
+		}
+
+		public List<BulkWriteError> getErrors() {
+			return errors;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserBulkDaoImpl implements UserBulkDao {
+	//~ Static fields/constants/initializer
+
+	private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+	// 驱动不接受空的写入列表，没有用户时直接返回
+	private static final Outcome EMPTY = new Outcome(
+			BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList(), Collections.emptyList()),
+			Collections.emptyList());
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Mono<Outcome> bulkWrite(List<User> users, boolean upsert) {
+		if (users.isEmpty()) {
+			return Mono.just(EMPTY);
+		}
+		List<WriteModel<Document>> models = new ArrayList<>(users.size());
+		for (User user : users) {
+			Document document = new Document();
+			mongoTemplate.getConverter().write(user, document);
+			if (upsert && user.getId() != null) {
+				models.add(new ReplaceOneModel<>(Filters.eq("_id", user.getId()), document, new ReplaceOptions().upsert(true)));
+			} else {
+				models.add(new InsertOneModel<>(document));
+			}
+		}
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+				.flatMap(collection -> Mono.from(collection.bulkWrite(models, UNORDERED)))
+				.map(result -> new Outcome(result, Collections.emptyList()))
+				// 无序写入时其他文档已经写入，异常中带有写入结果和失败的文档
+				.onErrorResume(MongoBulkWriteException.class,
+						e -> Mono.just(new Outcome(e.getWriteResult(), e.getWriteErrors())));
+	}
+}
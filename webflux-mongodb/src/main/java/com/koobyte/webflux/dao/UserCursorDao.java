@@ -0,0 +1,33 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import reactor.core.publisher.Flux;
+
+/**
+ * 用户流式查询，可以调整游标的批次大小、服务端执行时间和空闲超时，作为{@link UserDao}的自定义片段，由{@link UserCursorDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserCursorDao {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 流式读取全部数据。
+	 *
+	 * @param batchSize 游标每批返回的文档数，为空时使用{@code user.cursor.batch-size}
+	 */
+	Flux<User> streamAll(Integer batchSize);
+
+	/**
+	 * 按id顺序流式读取id大于{@code after}的全部数据，用于断点续传。
+	 *
+	 * @param batchSize 游标每批返回的文档数，为空时使用{@code user.cursor.batch-size}
+	 */
+	Flux<User> streamAllAfter(long after, Integer batchSize);
+}
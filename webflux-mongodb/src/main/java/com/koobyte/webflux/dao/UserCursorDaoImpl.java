@@ -0,0 +1,88 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直接使用驱动的{@link FindPublisher}，ReactiveMongoTemplate不会把{@code Query}的noCursorTimeout标志传给驱动。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserCursorDaoImpl implements UserCursorDao {
+	//~ Static fields/constants/initializer
+
+	private static final String ID = "_id";
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	// 游标每批返回的文档数
+	@Value("${user.cursor.batch-size:256}")
+	private int defaultBatchSize;
+
+	// 服务端的最长执行时间，0表示不限制
+	@Value("${user.cursor.max-time:30s}")
+	private Duration maxTime;
+
+	@Value("${user.cursor.no-cursor-timeout:false}")
+	private boolean noCursorTimeout;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<User> streamAll(Integer batchSize) {
+		return stream(new Document(), null, batchSize);
+	}
+
+	@Override
+	public Flux<User> streamAllAfter(long after, Integer batchSize) {
+		return stream(Filters.gt(ID, after), Sorts.ascending(ID), batchSize);
+	}
+
+	/**
+	 * 游标每批返回{@code batchSize}条，并且按下游的请求量拉取，下游每消费完大约一批才发起下一次getMore，
+	 * 客户端提前断开时最多多读一批，取消时驱动会关闭游标。
+	 */
+	private Flux<User> stream(Bson filter, Bson sort, Integer batchSize) {
+		int size = batchSize == null ? defaultBatchSize : batchSize;
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+				.flatMapMany(collection -> {
+					FindPublisher<Document> publisher = collection.find(filter)
+							// 读取时不需要类型信息
+							.projection(Projections.exclude("_class"))
+							.batchSize(size)
+							// 消费者很慢时游标可能空闲超过服务端的10分钟超时被回收，开启后依赖取消时关闭游标
+							.noCursorTimeout(noCursorTimeout);
+					if (sort != null) {
+						publisher = publisher.sort(sort);
+					}
+					// maxTime只计算服务端执行查询的时间，不包括两次getMore之间客户端消费的时间，不会误杀慢消费者
+					if (!maxTime.isZero()) {
+						publisher = publisher.maxTime(maxTime.toMillis(), TimeUnit.MILLISECONDS);
+					}
+					return publisher;
+				})
+				.limitRate(size)
+				.map(document -> mongoTemplate.getConverter().read(User.class, document));
+	}
+}
@@ -1,7 +1,9 @@
 package com.koobyte.webflux.dao;
 
 import com.koobyte.webflux.domain.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 
 /**
  * Created by sun on 2021/6/28.
@@ -9,11 +11,14 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
  * @author sunfuchang03@126.com
  * @since 1.0
  */
-public interface UserDao extends ReactiveMongoRepository<User, Long> {
+public interface UserDao extends ReactiveMongoRepository<User, Long>, UserBulkDao, UserCursorDao,
+		UserModifyDao, UserProjectionDao, UserStatsDao {
 	//~ Constants/Initializer
 
 
 	//~ Interfaces
 
+	// 基于id的游标分页（keyset），通过_id索引定位，任意深度的分页与第一页开销相同
+	Flux<User> findByIdGreaterThan(Long id, Pageable pageable);
 
 }
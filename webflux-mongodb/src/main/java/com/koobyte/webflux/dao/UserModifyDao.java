@@ -0,0 +1,33 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import reactor.core.publisher.Mono;
+
+/**
+ * 按id查找并替换、删除，一次往返完成查找和修改，作为{@link UserDao}的自定义片段，由{@link UserModifyDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserModifyDao {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 按id替换整个文档。
+	 *
+	 * @return 替换前的文档，没有找到时为空
+	 */
+	Mono<User> findAndReplace(User user);
+
+	/**
+	 * 按id删除。
+	 *
+	 * @return 删除的文档，没有找到时为空
+	 */
+	Mono<User> findAndRemove(Long id);
+}
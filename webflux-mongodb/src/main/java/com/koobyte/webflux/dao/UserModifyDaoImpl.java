@@ -0,0 +1,41 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserModifyDaoImpl implements UserModifyDao {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Mono<User> findAndReplace(User user) {
+		return mongoTemplate.findAndReplace(query(where("id").is(user.getId())), user);
+	}
+
+	@Override
+	public Mono<User> findAndRemove(Long id) {
+		return mongoTemplate.findAndRemove(query(where("id").is(id)), User.class);
+	}
+}
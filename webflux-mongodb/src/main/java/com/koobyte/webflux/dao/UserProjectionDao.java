@@ -0,0 +1,32 @@
+package com.koobyte.webflux.dao;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户字段投影查询，服务端只返回需要的字段，作为{@link UserDao}的自定义片段，由{@link UserProjectionDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserProjectionDao {
+	//~ Constants/Initializer
+
+	// 可以投影的字段
+	Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("id", "name", "age")));
+
+	//~ Interfaces
+
+	Flux<Map<String, Object>> findAllFields(Collection<String> fields);
+
+	Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields);
+}
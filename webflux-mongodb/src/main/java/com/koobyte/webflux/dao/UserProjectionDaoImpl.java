@@ -0,0 +1,81 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.User;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserProjectionDaoImpl implements UserProjectionDao {
+	//~ Static fields/constants/initializer
+
+	private static final String ID = "_id";
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<Map<String, Object>> findAllFields(Collection<String> fields) {
+		return mongoTemplate.find(project(new Query(), fields), Document.class, collection())
+				.map(document -> toMap(document, fields));
+	}
+
+	@Override
+	public Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields) {
+		return mongoTemplate.findOne(project(new Query(where(ID).is(id)), fields), Document.class, collection())
+				.map(document -> toMap(document, fields));
+	}
+
+	private Query project(Query query, Collection<String> fields) {
+		Assert.notEmpty(fields, "Fields must not be empty");
+		Assert.isTrue(FIELDS.containsAll(fields), () -> "Unknown fields: " + fields);
+		for (String field : fields) {
+			query.fields().include(column(field));
+		}
+		// _id默认总是返回，没有请求id时排除
+		if (!fields.contains("id")) {
+			query.fields().exclude(ID);
+		}
+		return query;
+	}
+
+	// 按请求的字段顺序输出，_id改回id
+	private Map<String, Object> toMap(Document document, Collection<String> fields) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String field : fields) {
+			map.put(field, document.get(column(field)));
+		}
+		return map;
+	}
+
+	// 按Document查询时不会经过实体映射，id需要写成_id
+	private String column(String field) {
+		return "id".equals(field) ? ID : field;
+	}
+
+	private String collection() {
+		return mongoTemplate.getCollectionName(User.class);
+	}
+}
@@ -0,0 +1,26 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.AgeBucket;
+import reactor.core.publisher.Flux;
+
+/**
+ * 用户统计，聚合在MongoDB中通过聚合管道完成，只返回聚合后的结果，作为{@link UserDao}的自定义片段，由{@link UserStatsDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserStatsDao {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 按年龄分组统计，忽略没有年龄的用户。
+	 *
+	 * @param width 每个区间的宽度
+	 */
+	Flux<AgeBucket> countByAge(int width);
+}
@@ -0,0 +1,52 @@
+package com.koobyte.webflux.dao;
+
+import com.koobyte.webflux.domain.AgeBucket;
+import com.koobyte.webflux.domain.User;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.Resource;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserStatsDaoImpl implements UserStatsDao {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<AgeBucket> countByAge(int width) {
+		// bucket = age - age % width，即区间的下界
+		Aggregation aggregation = newAggregation(
+				match(where("age").ne(null)),
+				project().and(ArithmeticOperators.Subtract.valueOf("age")
+						.subtract(ArithmeticOperators.Mod.valueOf("age").mod(width))).as("bucket"),
+				group("bucket").count().as("count"),
+				sort(Sort.Direction.ASC, "_id"));
+		return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(User.class), Document.class)
+				.map(document -> {
+					long from = ((Number) document.get("_id")).longValue();
+					return new AgeBucket(from, from + width, ((Number) document.get("count")).longValue());
+				});
+	}
+}
@@ -0,0 +1,51 @@
+package com.koobyte.webflux.domain;
+
+/**
+ * 年龄分布的一个区间，统计年龄在[from, to)之间的用户数。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class AgeBucket {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final long from;
+	private final long to;
+	private final long count;
+
+	//~ Constructors
+
+	public AgeBucket(long from, long to, long count) {
+		this.from = from;
+		this.to = to;
+		this.count = count;
+	}
+
+	//~ Methods
+
+	public long getFrom() {
+		return from;
+	}
+
+	public long getTo() {
+		return to;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "AgeBucket{" +
+				"from=" + from +
+				", to=" + to +
+				", count=" + count +
+				'}';
+	}
+}
@@ -0,0 +1,83 @@
+package com.koobyte.webflux.domain;
+
+import java.util.List;
+
+/**
+ * 批量写入中一个批次的结果，重复的id单独列出，其他写入错误只返回错误信息。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class BulkResult {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	// 批次序号，从0开始
+	private final long batch;
+	private final int size;
+	private final int inserted;
+	private final int upserted;
+	private final int modified;
+	private final List<Long> duplicateIds;
+	private final List<String> errors;
+
+	//~ Constructors
+
+	public BulkResult(long batch, int size, int inserted, int upserted, int modified, List<Long> duplicateIds,
+	                  List<String> errors) {
+		this.batch = batch;
+		this.size = size;
+		this.inserted = inserted;
+		this.upserted = upserted;
+		this.modified = modified;
+		this.duplicateIds = duplicateIds;
+		this.errors = errors;
+	}
+
+	//~ Methods
+
+	public long getBatch() {
+		return batch;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getInserted() {
+		return inserted;
+	}
+
+	public int getUpserted() {
+		return upserted;
+	}
+
+	public int getModified() {
+		return modified;
+	}
+
+	public List<Long> getDuplicateIds() {
+		return duplicateIds;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkResult{" +
+				"batch=" + batch +
+				", size=" + size +
+				", inserted=" + inserted +
+				", upserted=" + upserted +
+				", modified=" + modified +
+				", duplicateIds=" + duplicateIds +
+				", errors=" + errors +
+				'}';
+	}
+}
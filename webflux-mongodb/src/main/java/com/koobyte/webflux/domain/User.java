@@ -1,5 +1,6 @@
 package com.koobyte.webflux.domain;
 
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
@@ -24,7 +25,9 @@ public class User {
 
 	@MongoId()
 	private Long id;
+	@Indexed
 	private String name;
+	@Indexed
 	private Integer age;
 
 	public Long getId() {
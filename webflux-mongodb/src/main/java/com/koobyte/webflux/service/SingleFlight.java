@@ -0,0 +1,58 @@
+package com.koobyte.webflux.service;
+
+import com.koobyte.webflux.common.Deadlines;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 合并相同key的并发请求：同一个key同一时间只有一个查询在执行，并发的订阅者共享这个查询的结果。
+ * <p>
+ * 查询结束（成功、失败或为空）后立即移除，不会保留任何结果，之后的请求会重新查询。内部使用{@link ConcurrentHashMap}，
+ * 按桶加锁，不同key之间不会互相竞争。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class SingleFlight<K, V> {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+		return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, loader)));
+	}
+
+	/**
+	 * 当前正在执行的查询数。
+	 */
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	private Mono<V> share(K key, Function<K, Mono<V>> loader) {
+		AtomicReference<Mono<V>> self = new AtomicReference<>();
+		// share()在第一个订阅者订阅时执行查询，后续订阅者共享同一个结果；只移除自己，避免误删后来者新建的查询
+		// 查询不使用第一个订阅者的截止时间，否则它到期会让其他订阅者一起失败；每个订阅者由自己请求的截止时间取消，
+		// 全部取消后share()取消查询
+		Mono<V> shared = loader.apply(key)
+				.contextWrite(context -> context.delete(Deadlines.KEY))
+				.doFinally(signal -> inFlight.remove(key, self.get()))
+				.share();
+		self.set(shared);
+		return shared;
+	}
+}
@@ -0,0 +1,87 @@
+package com.koobyte.webflux.service;
+
+import com.koobyte.webflux.common.EventStreams;
+import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的用户变更订阅，增删改成功后发布变更事件，多播给所有订阅者。
+ * <p>
+ * 每个订阅者有自己的有界缓冲区（{@code user.change-feed.buffer-size}），由{@link EventStreams#bounded}实现，消费慢的订阅者
+ * 缓冲区满时按{@code streaming.overflow}合并同一个用户的变更或者驱逐该订阅者，不会影响其他订阅者，也不会无限占用内存。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserChangeFeed {
+	//~ Static fields/constants/initializer
+
+	private static final String STREAM = "user-changes";
+
+	//~ Instance fields
+
+	@Value("${user.change-feed.buffer-size:256}")
+	private int bufferSize;
+
+	@Resource
+	private EventStreams eventStreams;
+
+	// 没有请求数据的订阅者会被跳过，不会阻塞发布者
+	private final Sinks.Many<UserChange> sink = Sinks.many().multicast().directBestEffort();
+	private final AtomicLong sequence = new AtomicLong();
+	private final LongAdder published = new LongAdder();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public void created(User user) {
+		publish(UserChange.Type.CREATED, user.getId(), user);
+	}
+
+	public void updated(User user) {
+		publish(UserChange.Type.UPDATED, user.getId(), user);
+	}
+
+	public void deleted(Long id) {
+		publish(UserChange.Type.DELETED, id, null);
+	}
+
+	/**
+	 * 订阅增量变更，只包含订阅之后发生的变更。
+	 */
+	public Flux<UserChange> changes() {
+		return eventStreams.bounded(STREAM, sink.asFlux(), bufferSize, UserChange::getId);
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("subscribers", sink.currentSubscriberCount());
+		map.put("sequence", sequence.get());
+		map.put("published", published.sum());
+		// 只统计订阅者跟不上时合并或驱逐丢弃的，正常断开时缓冲区中剩下的不算
+		map.put("dropped", eventStreams.dropped(STREAM));
+		return map;
+	}
+
+	private void publish(UserChange.Type type, Long id, User user) {
+		published.increment();
+		sink.emitNext(new UserChange(sequence.incrementAndGet(), type, id, user),
+				// 其他线程正在发布时重试，没有订阅者时直接丢弃
+				(signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+	}
+}
@@ -0,0 +1,160 @@
+package com.koobyte.webflux.service;
+
+import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions.ChangeStreamOptionsBuilder;
+import org.springframework.data.mongodb.core.ReactiveChangeStreamOperation.ChangeStreamWithFilterAndProjection;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * 基于MongoDB change stream的用户变更订阅，能收到其他进程对users集合的修改，需要MongoDB以副本集方式运行。
+ * <p>
+ * 从当前开始订阅的客户端共享同一个change stream游标，多播给所有订阅者，最后一个订阅者取消后关闭游标；
+ * 带resume token重连的客户端单独打开一个游标，从token之后继续推送。每个订阅者有自己的有界缓冲区，
+ * 缓冲区满时结束该订阅者的推送而不是丢弃事件，客户端带着最后收到的token重连即可从断点继续，不会遗漏。
+ * <p>
+ * 用户的_id是数值，其他程序写入的_id不是数值（例如ObjectId）的文档不是这里的用户，这些事件记录警告后跳过。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserChangeStream {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(UserChangeStream.class);
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${user.change-stream.buffer-size:256}")
+	private int bufferSize;
+
+	// 共享的change stream，有订阅者时才打开游标
+	private Flux<ChangeStreamEvent<User>> shared;
+
+	private final AtomicInteger sharedSubscribers = new AtomicInteger();
+	private final AtomicInteger resumedSubscribers = new AtomicInteger();
+	private final LongAdder received = new LongAdder();
+	private final LongAdder evicted = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		shared = listen(null).publish().refCount();
+	}
+
+	/**
+	 * 订阅users集合的变更。
+	 *
+	 * @param resumeToken 上次收到的最后一个事件的token，为空时从当前开始订阅
+	 */
+	public Flux<ChangeStreamEvent<User>> watch(String resumeToken) {
+		if (resumeToken == null || resumeToken.isEmpty()) {
+			return bounded(shared, sharedSubscribers);
+		}
+		return bounded(listen(new BsonDocument("_data", new BsonString(resumeToken))), resumedSubscribers);
+	}
+
+	/**
+	 * 事件的resume token，作为SSE事件的id返回给客户端。
+	 */
+	public static String token(ChangeStreamEvent<User> event) {
+		BsonValue token = event.getResumeToken();
+		return token == null ? null : token.asDocument().getString("_data").getValue();
+	}
+
+	/**
+	 * 转换成变更事件，删除事件只有id。
+	 */
+	public static UserChange toChange(ChangeStreamEvent<User> event) {
+		Long id = id(event);
+		switch (event.getOperationType()) {
+			case INSERT:
+				return new UserChange(0, UserChange.Type.CREATED, id, event.getBody());
+			case DELETE:
+				return new UserChange(0, UserChange.Type.DELETED, id, null);
+			default:
+				return new UserChange(0, UserChange.Type.UPDATED, id, event.getBody());
+		}
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("sharedSubscribers", sharedSubscribers.get());
+		map.put("resumedSubscribers", resumedSubscribers.get());
+		map.put("received", received.sum());
+		map.put("evicted", evicted.sum());
+		map.put("skipped", skipped.sum());
+		return map;
+	}
+
+	// 文档的_id，不是数值时返回null
+	private static Long id(ChangeStreamEvent<User> event) {
+		BsonDocument key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+		BsonValue id = key == null ? null : key.get("_id");
+		return id != null && id.isNumber() ? id.asNumber().longValue() : null;
+	}
+
+	private Flux<ChangeStreamEvent<User>> listen(BsonValue resumeToken) {
+		// 更新事件默认只有变化的字段，查询一次完整文档
+		ChangeStreamWithFilterAndProjection<User> changeStream = mongoTemplate.changeStream(User.class)
+				.withOptions(ChangeStreamOptionsBuilder::returnFullDocumentOnUpdate)
+				.watchCollection(User.class)
+				.filter(where("operationType").in("insert", "update", "replace", "delete"));
+		return (resumeToken == null ? changeStream : changeStream.resumeAfter(resumeToken))
+				.listen()
+				.doOnNext(event -> received.increment())
+				.filter(this::isUser);
+	}
+
+	private boolean isUser(ChangeStreamEvent<User> event) {
+		if (id(event) != null) {
+			return true;
+		}
+		skipped.increment();
+		BsonDocument key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+		log.warn("Skipped {} change of a document without numeric _id: {}", event.getOperationType(), key);
+		return false;
+	}
+
+	private Flux<ChangeStreamEvent<User>> bounded(Flux<ChangeStreamEvent<User>> events, AtomicInteger subscribers) {
+		return events
+				.onBackpressureBuffer(bufferSize)
+				// 消费太慢，结束推送，让客户端带着最后的token重连
+				.onErrorResume(Exceptions::isOverflow, e -> {
+					evicted.increment();
+					return Flux.empty();
+				})
+				.doOnSubscribe(s -> subscribers.incrementAndGet())
+				.doFinally(signal -> subscribers.decrementAndGet());
+	}
+}
@@ -1,11 +1,17 @@
 package com.koobyte.webflux.service;
 
+import com.koobyte.webflux.domain.AgeBucket;
+import com.koobyte.webflux.domain.BulkResult;
 import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
 import org.springframework.http.ResponseEntity;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by sun on 2021/6/28.
@@ -19,10 +25,20 @@ public interface UserCrudService {
 
 	//~ Interfaces
 
+	/**
+	 * 新增用户，没有id时由服务端分配。
+	 */
 	Mono<User> add(User user);
 
 	Flux<User> add(List<User> users);
 
+	/**
+	 * 批量写入，按{@code user.bulk.batch-size}分批无序写入，每批完成后返回该批的结果，id重复的文档只在结果中报告，不会中断写入。
+	 *
+	 * @param upsert true时带id的用户按id替换或插入，false时全部插入
+	 */
+	Flux<BulkResult> bulkWrite(Flux<User> users, boolean upsert);
+
 	Mono<ResponseEntity<User>> update(User user);
 
 	Mono<ResponseEntity<Void>> delete(Long id);
@@ -30,4 +46,55 @@ public interface UserCrudService {
 	Mono<User> findOne(Long id);
 
 	Flux<User> findAll();
+
+	/**
+	 * 流式读取全部数据。
+	 *
+	 * @param batchSize 游标每批返回的文档数，为空时使用{@code user.cursor.batch-size}
+	 */
+	Flux<User> findAll(Integer batchSize);
+
+	/**
+	 * 查询id大于{@code after}的最多{@code limit}条数据。
+	 */
+	Flux<User> findPage(long after, int limit);
+
+	/**
+	 * 按id顺序流式读取id大于{@code after}的全部数据。
+	 */
+	Flux<User> findAllAfter(long after);
+
+	/**
+	 * 按id顺序流式读取id大于{@code after}的全部数据。
+	 *
+	 * @param batchSize 游标每批返回的文档数，为空时使用{@code user.cursor.batch-size}
+	 */
+	Flux<User> findAllAfter(long after, Integer batchSize);
+
+	/**
+	 * 订阅用户变更。
+	 *
+	 * @param snapshot 为true时先推送当前全部数据的快照，再继续推送增量；增量在读取快照之前就已经开始订阅，不会遗漏，
+	 *                 但可能与快照重复，客户端按id覆盖即可
+	 */
+	Flux<UserChange> changes(boolean snapshot);
+
+	/**
+	 * 通过change stream订阅users集合的变更，包括其他进程的修改。
+	 *
+	 * @param resumeToken 上次收到的最后一个事件的token，为空时从当前开始订阅
+	 */
+	Flux<ChangeStreamEvent<User>> watch(String resumeToken);
+
+	/**
+	 * 只查询指定的字段，投影下推到MongoDB。
+	 */
+	Mono<Map<String, Object>> findOne(Long id, Collection<String> fields);
+
+	Flux<Map<String, Object>> findAll(Collection<String> fields);
+
+	/**
+	 * 年龄分布，在MongoDB中通过聚合管道统计。
+	 */
+	Flux<AgeBucket> countByAge(int width);
 }
@@ -0,0 +1,210 @@
+package com.koobyte.webflux.service;
+
+import com.koobyte.webflux.domain.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * 用户id分配器（hi-lo）：通过计数器文档的findAndModify $inc一次预留一段id，在内存中无锁分配，每段只需要一次数据库往返，
+ * 多个实例之间不会重复。
+ * <p>
+ * 当前段剩余不足{@code user.id.low-water}个时异步预留下一段，当前段用完后才切换过去，正常情况下分配id不需要等待数据库，
+ * 每段的id都会用完。计数器第一次使用时
+ * 以users集合中现有的最大id为起点，不会与客户端指定的旧id冲突。实例重启时未用完的id会被跳过，id递增但不连续。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserIdAllocator {
+	//~ Static fields/constants/initializer
+
+	private static final String COUNTERS = "counters";
+	private static final String SEQ = "seq";
+
+	//~ Instance fields
+
+	@Resource
+	private ReactiveMongoTemplate mongoTemplate;
+
+	// 每次预留的id数量
+	@Value("${user.id.block-size:1000}")
+	private int blockSize;
+
+	// 当前段剩余的id数等于该值时预留下一段
+	@Value("${user.id.low-water:200}")
+	private int lowWater;
+
+	private String counter;
+	// 计数器是否已经初始化，多个线程同时初始化也没有问题
+	private volatile boolean seeded;
+
+	private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+	// 预留中或已经预留好的下一段，以它要替换的段为key，同一段只会预留一次后继
+	private final AtomicReference<Prefetch> prefetch = new AtomicReference<>();
+
+	private final LongAdder allocated = new LongAdder();
+	private final LongAdder blocks = new LongAdder();
+	// 当前段已经用完、调用方需要等待下一段的次数
+	private final LongAdder stalls = new LongAdder();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		counter = mongoTemplate.getCollectionName(User.class);
+		lowWater = Math.max(0, Math.min(lowWater, blockSize - 1));
+		// 启动时预留第一段，第一次新增不需要等待
+		successor(Block.EMPTY);
+	}
+
+	/**
+	 * 分配一个id，当前段还有剩余时同步返回。
+	 */
+	public Mono<Long> next() {
+		Block block = current.get();
+		long id = block.next.getAndIncrement();
+		if (id <= block.max) {
+			allocated.increment();
+			// 只有一个线程能拿到这个id，保证每段只触发一次预留
+			if (block.max - id == lowWater) {
+				successor(block);
+			}
+			return Mono.just(id);
+		}
+		// 当前段已经用完，下一段已经预留好时直接切换，否则等待预留完成
+		Prefetch pending = prefetch.get();
+		if (pending != null && pending.after == block && pending.ready != null) {
+			current.compareAndSet(block, pending.ready);
+			return next();
+		}
+		stalls.increment();
+		return successor(block)
+				.doOnNext(next -> current.compareAndSet(block, next))
+				.then(Mono.defer(this::next));
+	}
+
+	/**
+	 * 为没有id的用户分配id。
+	 */
+	public Mono<User> assign(User user) {
+		if (user.getId() != null) {
+			return Mono.just(user);
+		}
+		return next().map(id -> {
+			user.setId(id);
+			return user;
+		});
+	}
+
+	public Map<String, Object> stats() {
+		Block block = current.get();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("blockSize", blockSize);
+		map.put("lowWater", lowWater);
+		map.put("remaining", Math.max(0, block.max - block.next.get() + 1));
+		map.put("allocated", allocated.sum());
+		map.put("blocks", blocks.sum());
+		map.put("stalls", stalls.sum());
+		return map;
+	}
+
+	// 返回替换block的下一段，没有在预留时发起预留；预留完成后不切换，由next()在block用完时切换
+	private Mono<Block> successor(Block block) {
+		for (; ; ) {
+			// 已经被其他线程替换，直接用新的段重试
+			Block latest = current.get();
+			if (latest != block) {
+				return Mono.just(latest);
+			}
+			Prefetch pending = prefetch.get();
+			if (pending != null && pending.after == block) {
+				return pending.next;
+			}
+			Prefetch created = new Prefetch(block, reserve());
+			if (prefetch.compareAndSet(pending, created)) {
+				// 立即开始预留，失败时清除，下次调用重新预留
+				created.next.subscribe(null, e -> prefetch.compareAndSet(created, null));
+				return created.next;
+			}
+		}
+	}
+
+	private Mono<Block> reserve() {
+		Query query = Query.query(where("_id").is(counter));
+		Update update = new Update().inc(SEQ, blockSize);
+		return Mono.defer(this::seed).then(mongoTemplate.findAndModify(query, update,
+				FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COUNTERS))
+				// 多个实例同时创建计数器时upsert可能冲突，重试即可
+				.retryWhen(Retry.max(3).filter(DuplicateKeyException.class::isInstance))
+				.map(document -> {
+					long max = document.get(SEQ, Number.class).longValue();
+					blocks.increment();
+					return new Block(max - blockSize + 1, max);
+				});
+	}
+
+	// 计数器不小于users集合中现有的最大id，$max是原子的，已经更大时不会修改
+	private Mono<Void> seed() {
+		if (seeded) {
+			return Mono.empty();
+		}
+		Query maxId = new Query().with(Sort.by(Sort.Direction.DESC, "id")).limit(1);
+		return mongoTemplate.findOne(maxId, User.class)
+				.map(User::getId)
+				.defaultIfEmpty(0L)
+				.flatMap(max -> mongoTemplate.upsert(Query.query(where("_id").is(counter)), new Update().max(SEQ, max), COUNTERS))
+				.retryWhen(Retry.max(3).filter(DuplicateKeyException.class::isInstance))
+				.doOnSuccess(result -> seeded = true)
+				.then();
+	}
+
+	// 一段id，[next, max]为未分配的部分
+	private static final class Block {
+		static final Block EMPTY = new Block(1, 0);
+
+		final long max;
+		final AtomicLong next;
+
+		Block(long min, long max) {
+			this.max = max;
+			this.next = new AtomicLong(min);
+		}
+	}
+
+	private static final class Prefetch {
+		final Block after;
+		final Mono<Block> next;
+		// 预留完成后的下一段
+		volatile Block ready;
+
+		Prefetch(Block after, Mono<Block> reserve) {
+			this.after = after;
+			this.next = reserve.doOnNext(block -> ready = block).cache();
+		}
+	}
+}
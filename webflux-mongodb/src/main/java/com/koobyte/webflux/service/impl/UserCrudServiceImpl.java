@@ -1,16 +1,38 @@
 package com.koobyte.webflux.service.impl;
 
+import com.koobyte.webflux.dao.UserBulkDao;
 import com.koobyte.webflux.dao.UserDao;
+import com.koobyte.webflux.domain.AgeBucket;
+import com.koobyte.webflux.domain.BulkResult;
 import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import com.koobyte.webflux.service.SingleFlight;
+import com.koobyte.webflux.service.UserBatchLoader;
+import com.koobyte.webflux.service.UserChangeFeed;
+import com.koobyte.webflux.service.UserChangeStream;
 import com.koobyte.webflux.service.UserCrudService;
+import com.koobyte.webflux.service.UserIdAllocator;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by sun on 2021/6/28.
@@ -22,12 +44,33 @@ import java.util.List;
 public class UserCrudServiceImpl implements UserCrudService {
 	//~ Static fields/constants/initializer
 
+	// 唯一索引冲突的错误码
+	private static final int DUPLICATE_KEY = 11000;
 
 	//~ Instance fields
 
 	@Resource
 	private UserDao userDao;
 
+	@Resource
+	private UserBatchLoader userBatchLoader;
+
+	@Resource
+	private UserChangeFeed userChangeFeed;
+
+	@Resource
+	private UserChangeStream userChangeStream;
+
+	@Resource
+	private UserIdAllocator userIdAllocator;
+
+	// 批量写入时每次bulkWrite包含的文档数
+	@Value("${user.bulk.batch-size:500}")
+	private int bulkBatchSize;
+
+	// 合并同一个id的并发查询
+	private final SingleFlight<Long, User> findOneFlight = new SingleFlight<>();
+
 	//~ Constructors
 
 
@@ -35,40 +78,174 @@ public class UserCrudServiceImpl implements UserCrudService {
 
 	@Override
 	public Mono<User> add(User user) {
-		return userDao.insert(user);
+		// 没有id时由服务端分配
+		return userIdAllocator.assign(user)
+				.flatMap(userDao::insert)
+				.doOnNext(userChangeFeed::created);
 	}
 
 	@Override
 	public Flux<User> add(List<User> users) {
-		return userDao.insert(users);
+		// 无序写入，只返回写入成功的用户，id重复的跳过
+		return assignIds(users)
+				.then(Mono.defer(() -> userDao.bulkWrite(users, false)))
+				.flatMapIterable(outcome -> {
+					Set<Integer> failed = failedIndexes(outcome);
+					List<User> inserted = new ArrayList<>(users.size() - failed.size());
+					for (int i = 0; i < users.size(); i++) {
+						if (!failed.contains(i)) {
+							User user = users.get(i);
+							userChangeFeed.created(user);
+							inserted.add(user);
+						}
+					}
+					return inserted;
+				});
+	}
+
+	@Override
+	public Flux<BulkResult> bulkWrite(Flux<User> users, boolean upsert) {
+		// 同一时间只有一个批次在写入，写完才继续读取请求体，不会把整个上传缓冲在内存中
+		return users.buffer(bulkBatchSize)
+				.index()
+				.concatMap(batch -> assignIds(batch.getT2())
+						.then(Mono.defer(() -> userDao.bulkWrite(batch.getT2(), upsert)))
+						.map(outcome -> toResult(batch.getT1(), batch.getT2(), upsert, outcome)), 1);
 	}
 
 	@Override
 	public Mono<ResponseEntity<User>> update(User user) {
 		assert user != null && user.getId() != null;
-		return userDao.findById(user.getId())
-				// 找到，直接修改
-				.flatMap(u -> userDao.save(u).then(Mono.just(new ResponseEntity<>(u, HttpStatus.OK))))
+		// findAndReplace一次往返完成查找和替换，返回替换前的文档
+		return userDao.findAndReplace(user)
+				// 找到，返回替换后的数据
+				.map(old -> {
+					userChangeFeed.updated(user);
+					return new ResponseEntity<>(user, HttpStatus.OK);
+				})
 				// 未找到，返回404
 				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
 	}
 
 	@Override
 	public Mono<ResponseEntity<Void>> delete(Long id) {
-		return userDao.findById(id) // 查询出数据
-				// 查询到了则删除，返回200
-				.flatMap(user -> userDao.deleteById(user.getId()).then(Mono.just(new ResponseEntity<Void>(HttpStatus.OK))))
+		// findAndRemove一次往返完成查找和删除
+		return userDao.findAndRemove(id)
+				// 删除成功返回200
+				.map(user -> {
+					userChangeFeed.deleted(id);
+					return new ResponseEntity<Void>(HttpStatus.OK);
+				})
 				// 没有找到返回404
 				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
 	}
 
 	@Override
 	public Mono<User> findOne(Long id) {
-		return userDao.findById(id);
+		// 先合并同一个id的并发查询，再由批量加载合并成IN查询
+		return findOneFlight.execute(id, userBatchLoader::load);
 	}
 
 	@Override
 	public Flux<User> findAll() {
-		return userDao.findAll();
+		return userDao.streamAll(null);
+	}
+
+	@Override
+	public Flux<User> findAll(Integer batchSize) {
+		return userDao.streamAll(batchSize);
+	}
+
+	@Override
+	public Flux<User> findPage(long after, int limit) {
+		return userDao.findByIdGreaterThan(after, PageRequest.of(0, limit, Sort.by("id")));
+	}
+
+	@Override
+	public Flux<User> findAllAfter(long after) {
+		return userDao.streamAllAfter(after, null);
+	}
+
+	@Override
+	public Flux<User> findAllAfter(long after, Integer batchSize) {
+		return userDao.streamAllAfter(after, batchSize);
+	}
+
+	@Override
+	public Flux<UserChange> changes(boolean snapshot) {
+		if (!snapshot) {
+			return userChangeFeed.changes();
+		}
+		// 先订阅增量再读取快照，快照期间的变更会先缓冲起来，快照推送完后继续推送
+		return userChangeFeed.changes()
+				.publish(live -> Flux.concat(findAllAfter(Long.MIN_VALUE).map(UserChange::snapshot), live));
+	}
+
+	@Override
+	public Flux<ChangeStreamEvent<User>> watch(String resumeToken) {
+		return userChangeStream.watch(resumeToken);
+	}
+
+	@Override
+	public Mono<Map<String, Object>> findOne(Long id, Collection<String> fields) {
+		return userDao.findFieldsById(id, fields);
+	}
+
+	@Override
+	public Flux<Map<String, Object>> findAll(Collection<String> fields) {
+		return userDao.findAllFields(fields);
+	}
+
+	@Override
+	public Flux<AgeBucket> countByAge(int width) {
+		Assert.isTrue(width > 0, "Width must be positive");
+		return userDao.countByAge(width);
+	}
+
+	// 为没有id的用户分配id，通常都在当前段内同步完成
+	private Mono<Void> assignIds(List<User> users) {
+		return Flux.fromIterable(users)
+				.concatMap(userIdAllocator::assign)
+				.then();
+	}
+
+	private BulkResult toResult(long index, List<User> batch, boolean upsert, UserBulkDao.Outcome outcome) {
+		BulkWriteResult result = outcome.getResult();
+		List<Long> duplicateIds = new ArrayList<>();
+		List<String> errors = new ArrayList<>();
+		for (BulkWriteError error : outcome.getErrors()) {
+			if (error.getCode() == DUPLICATE_KEY) {
+				duplicateIds.add(batch.get(error.getIndex()).getId());
+			} else {
+				errors.add(error.getMessage());
+			}
+		}
+		// 发布写入成功的用户的变更，upsert时按id匹配到的是更新，其他是新增
+		Set<Integer> failed = failedIndexes(outcome);
+		Set<Integer> upserted = new HashSet<>();
+		for (BulkWriteUpsert upsertItem : result.getUpserts()) {
+			upserted.add(upsertItem.getIndex());
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			User user = batch.get(i);
+			if (failed.contains(i)) {
+				continue;
+			}
+			if (upsert && user.getId() != null && !upserted.contains(i)) {
+				userChangeFeed.updated(user);
+			} else {
+				userChangeFeed.created(user);
+			}
+		}
+		return new BulkResult(index, batch.size(), result.getInsertedCount(), result.getUpserts().size(),
+				result.getModifiedCount(), duplicateIds, errors);
+	}
+
+	private Set<Integer> failedIndexes(UserBulkDao.Outcome outcome) {
+		Set<Integer> failed = new HashSet<>();
+		for (BulkWriteError error : outcome.getErrors()) {
+			failed.add(error.getIndex());
+		}
+		return failed;
 	}
-}
\ No newline at end of file
+}
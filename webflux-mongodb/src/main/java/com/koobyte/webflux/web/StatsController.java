@@ -0,0 +1,80 @@
+package com.koobyte.webflux.web;
+
+import com.koobyte.webflux.config.SlowCommandListener;
+import com.koobyte.webflux.service.UserBatchLoader;
+import com.koobyte.webflux.service.UserChangeFeed;
+import com.koobyte.webflux.service.UserChangeStream;
+import com.koobyte.webflux.service.UserIdAllocator;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.Map;
+
+/**
+ * 运行时统计信息，用于观察批量加载等组件的运行状况。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private UserBatchLoader userBatchLoader;
+
+	@Resource
+	private UserChangeFeed userChangeFeed;
+
+	@Resource
+	private UserChangeStream userChangeStream;
+
+	@Resource
+	private UserIdAllocator userIdAllocator;
+
+	@Resource
+	private SlowCommandListener slowCommandListener;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	// 批量加载的批次大小和等待时间
+	@GetMapping("/user-loader")
+	public Map<String, Object> userLoader() {
+		return userBatchLoader.stats();
+	}
+
+	// 变更订阅的订阅者数量、已发布和因消费慢被丢弃的事件数
+	@GetMapping("/user-changes")
+	public Map<String, Object> userChanges() {
+		return userChangeFeed.stats();
+	}
+
+	// change stream的共享和续传订阅者数量、收到的事件数和因消费慢被断开的订阅者数
+	@GetMapping("/user-watch")
+	public Map<String, Object> userWatch() {
+		return userChangeStream.stats();
+	}
+
+	// id分配器当前段的剩余数量、预留的段数和等待预留的次数
+	@GetMapping("/user-id")
+	public Map<String, Object> userId() {
+		return userIdAllocator.stats();
+	}
+
+	// 慢命令数、其中全集合扫描的次数以及最近的慢命令和执行计划
+	@GetMapping("/slow-queries")
+	public Map<String, Object> slowQueries() {
+		return slowCommandListener.stats();
+	}
+}
@@ -1,16 +1,29 @@
 package com.koobyte.webflux.web;
 
+import com.koobyte.webflux.common.EventStreams;
+import com.koobyte.webflux.domain.AgeBucket;
+import com.koobyte.webflux.domain.BulkResult;
 import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import com.koobyte.webflux.service.UserChangeStream;
 import com.koobyte.webflux.service.UserCrudService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Resource;
+import java.util.Map;
+import java.util.Set;
+
+import static com.koobyte.webflux.web.UserParams.*;
 
 /**
+ * 注解式的/user接口，{@code user.api.style=annotated}（默认）时生效，函数式的实现见{@link UserRouter}。
+ * <p>
  * Created by sun on 2021/6/27.
  *
  * @author sunfuchang03@126.com
@@ -18,6 +31,7 @@ import javax.annotation.Resource;
  */
 @RestController
 @RequestMapping("/user")
+@ConditionalOnProperty(name = "user.api.style", havingValue = "annotated", matchIfMissing = true)
 public class UserCrudController {
 	//~ Static fields/constants/initializer
 
@@ -27,6 +41,9 @@ public class UserCrudController {
 	@Resource
 	private UserCrudService userCrudService;
 
+	@Resource
+	private EventStreams eventStreams;
+
 	//~ Constructors
 
 
@@ -37,6 +54,14 @@ public class UserCrudController {
 		return userCrudService.add(user);
 	}
 
+	// 批量写入，请求体可以是JSON数组或者NDJSON，每写完一批按行返回该批的结果，upsert=true时带id的用户按id替换或插入
+	@PostMapping(value = "/bulk",
+			consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+			produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<BulkResult> bulkWrite(@RequestBody Flux<User> users, @RequestParam(defaultValue = "false") boolean upsert) {
+		return userCrudService.bulkWrite(users, upsert);
+	}
+
 	@PutMapping
 	public Mono<ResponseEntity<User>> update(@RequestBody User user) {
 		return userCrudService.update(user);
@@ -52,13 +77,70 @@ public class UserCrudController {
 		return userCrudService.findOne(id);
 	}
 
+	// 稀疏字段，例如?fields=id,name，只查询并返回这些字段
+	@GetMapping(value = "/{id}", params = "fields")
+	public Mono<Map<String, Object>> findOne(@PathVariable Long id, @RequestParam Set<String> fields) {
+		return userCrudService.findOne(id, checkFields(fields));
+	}
+
+	// batchSize为游标每批返回的文档数，不传时使用配置的默认值
 	@GetMapping("/all")
-	public Flux<User> findAll() {
-		return userCrudService.findAll();
+	public Flux<User> findAll(@RequestParam(required = false) Integer batchSize) {
+		return userCrudService.findAll(checkBatchSize(batchSize));
+	}
+
+	@GetMapping(value = "/all", params = "fields")
+	public Flux<Map<String, Object>> findAll(@RequestParam Set<String> fields) {
+		return userCrudService.findAll(checkFields(fields));
 	}
 
+	// 游标分页，after为上一页返回的next，按id定位而不是OFFSET，深度分页不会变慢
+	@GetMapping("/page")
+	public Mono<UserPage> findPage(@RequestParam(required = false) String after,
+	                               @RequestParam(defaultValue = "20") int limit) {
+		checkLimit(limit);
+		// 多查一条用来判断是否还有下一页
+		return userCrudService.findPage(Cursors.decode(after), limit + 1)
+				.collectList()
+				.map(users -> UserPage.of(users, limit));
+	}
+
+	// 每个事件的id就是游标，断线重连时浏览器会通过Last-Event-ID带回，从断点继续推送
 	@GetMapping(value = "/stream/all", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Flux<User> findStreamAll() {
-		return userCrudService.findAll();
+	public Flux<ServerSentEvent<String>> findStreamAll(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+	                                                   @RequestParam(required = false) Integer batchSize) {
+		Flux<ServerSentEvent<User>> events = userCrudService.findAllAfter(Cursors.decode(lastEventId), checkBatchSize(batchSize))
+				.map(user -> ServerSentEvent.builder(user).id(Cursors.encode(user.getId())).build());
+		return eventStreams.stream("user-stream-all", events);
+	}
+
+	// 变更订阅，只推送增量，snapshot=true时先推送全量快照再继续推送增量
+	@GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> changes(@RequestParam(defaultValue = "false") boolean snapshot) {
+		return eventStreams.stream("user-changes", userCrudService.changes(snapshot)
+				.map(change -> {
+					ServerSentEvent.Builder<UserChange> builder = ServerSentEvent.builder(change).event(change.getType().name());
+					// 快照事件没有序号
+					return change.getSequence() > 0 ? builder.id(String.valueOf(change.getSequence())).build() : builder.build();
+				}));
+	}
+
+	// 基于change stream的变更订阅，能收到其他进程的修改，事件id是resume token，断线重连时通过Last-Event-ID从断点继续推送
+	@GetMapping(value = "/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> watch(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		return eventStreams.stream("user-watch", userCrudService.watch(lastEventId)
+				.map(event -> {
+					UserChange change = UserChangeStream.toChange(event);
+					return ServerSentEvent.builder(change)
+							.id(UserChangeStream.token(event))
+							.event(change.getType().name())
+							.build();
+				}));
+	}
+
+	// 年龄分布，例如?width=10按每10岁一个区间统计
+	@GetMapping("/stats/age")
+	public Flux<AgeBucket> countByAge(@RequestParam(defaultValue = "10") int width) {
+		return userCrudService.countByAge(checkWidth(width));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.domain.UserChange;
+import com.koobyte.webflux.service.UserChangeStream;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveChangeStreamOperation.ReactiveChangeStream;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 不需要副本集：change stream模拟为固定的事件，_id不是数值的文档（例如其他程序用ObjectId写入的）跳过，不影响后面的事件。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserChangeStreamTest {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	AtomicInteger tokens = new AtomicInteger();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSkipsNonNumericIds() {
+		ReactiveChangeStream<User> changeStream = mock(ReactiveChangeStream.class, Answers.RETURNS_SELF);
+		when(changeStream.listen()).thenReturn(Flux.just(
+				event(OperationType.DELETE, new BsonInt64(1)),
+				event(OperationType.INSERT, new BsonObjectId()),
+				event(OperationType.DELETE, new BsonInt32(2)),
+				event(OperationType.DELETE, new BsonString("3"))));
+		ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+		when(mongoTemplate.changeStream(User.class)).thenReturn(changeStream);
+		UserChangeStream userChangeStream = new UserChangeStream();
+		ReflectionTestUtils.setField(userChangeStream, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(userChangeStream, "bufferSize", 16);
+		userChangeStream.init();
+
+		StepVerifier.create(userChangeStream.watch(null).map(UserChangeStream::toChange).map(UserChange::getId))
+				.expectNext(1L, 2L)
+				.verifyComplete();
+		assertEquals(4L, userChangeStream.stats().get("received"));
+		assertEquals(2L, userChangeStream.stats().get("skipped"));
+		// 直接转换时id为空，不抛出异常
+		assertNull(UserChangeStream.toChange(event(OperationType.DELETE, new BsonObjectId())).getId());
+	}
+
+	private ChangeStreamEvent<User> event(OperationType type, BsonValue id) {
+		BsonDocument token = new BsonDocument("_data", new BsonString(String.valueOf(tokens.incrementAndGet())));
+		ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(type, token, null, null, null,
+				new BsonDocument("_id", id), null, null, null, null);
+		return new ChangeStreamEvent<>(raw, User.class, mock(MongoConverter.class));
+	}
+}
@@ -5,8 +5,17 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koobyte.webflux.domain.User;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -50,6 +59,36 @@ public class UserControllerTest {
 		System.out.println(body);
 	}
 
+	@Test
+	public void testAddWithoutId() {
+		User user = new User();
+		user.setName("王五");
+		user.setAge(25);
+		// id由服务端分配
+		String body = restTemplate.postForEntity(URL, user, String.class).getBody();
+		System.out.println(body);
+		System.out.println(restTemplate.getForEntity("http://localhost:8080/stats/user-id", String.class).getBody());
+	}
+
+	@Test
+	public void testAddAll() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			User user = new User();
+			// 包含已存在的id，重复的会在结果中报告
+			user.setId(i + 1L);
+			user.setName("用户" + i);
+			user.setAge(20 + i % 50);
+			users.add(user);
+		}
+		// 每批一行结果
+		String body = restTemplate.postForEntity(URL + "/bulk", users, String.class).getBody();
+		System.out.println(body);
+		// upsert时重复的id会被替换
+		body = restTemplate.postForEntity(URL + "/bulk?upsert=true", users, String.class).getBody();
+		System.out.println(body);
+	}
+
 	@Test
 	public void testUpdate() {
 		User user = new User();
@@ -99,4 +138,70 @@ public class UserControllerTest {
 		String body = restTemplate.getForEntity(URL + "/stream/all", String.class).getBody();
 		System.out.println(body);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testGetPage() throws JsonProcessingException {
+		String body = restTemplate.getForEntity(URL + "/page?limit=2", String.class).getBody();
+		System.out.println(body);
+		// 使用返回的next继续查询下一页
+		String next = mapper.readTree(body).path("next").asText(null);
+		if (next != null) {
+			System.out.println(restTemplate.getForEntity(URL + "/page?limit=2&after=" + next, String.class).getBody());
+		}
+	}
+
+	@Test
+	public void testGetStreamAllResume() {
+		// 模拟断线重连，从第一条数据之后继续推送
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Last-Event-ID", Base64.getUrlEncoder().withoutPadding().encodeToString("1".getBytes()));
+		String body = restTemplate.exchange(URL + "/stream/all", HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testGetStreamAllBatchSize() {
+		// 游标每批返回16条
+		String body = restTemplate.getForEntity(URL + "/stream/all?batchSize=16", String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testWatch() {
+		// 需要单节点副本集，例如 mongod --replSet rs0 后执行 rs.initiate()，订阅后在其他客户端修改users集合
+		WebClient.create(URL).get().uri("/watch")
+				.retrieve()
+				.bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+				})
+				.take(3)
+				.take(Duration.ofSeconds(30))
+				.doOnNext(event -> System.out.println(event.id() + " " + event.event() + " " + event.data()))
+				.blockLast();
+	}
+
+	@Test
+	public void testGetFields() {
+		// 只返回id和name
+		System.out.println(restTemplate.getForEntity(URL + "/all?fields=id,name", String.class).getBody());
+		System.out.println(restTemplate.getForEntity(URL + "/1?fields=name", String.class).getBody());
+	}
+
+	@Test
+	public void testStats() {
+		System.out.println(restTemplate.getForEntity(URL + "/stats/age?width=10", String.class).getBody());
+	}
+
+	@Test
+	public void testSlowQueries() {
+		// 最近的慢命令和执行计划，collectionScan为true表示全集合扫描
+		String body = restTemplate.getForEntity("http://localhost:8080/stats/slow-queries", String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testMetrics() {
+		// 按路由的请求耗时、正在处理的请求数和Repository方法耗时，Prometheus文本格式
+		String body = restTemplate.getForEntity("http://localhost:8080/actuator/prometheus", String.class).getBody();
+		System.out.println(body);
+	}
+}
@@ -0,0 +1,90 @@
+package com.koobyte.webflux;
+
+import com.koobyte.webflux.domain.User;
+import com.koobyte.webflux.service.UserIdAllocator;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 不需要数据库：计数器的findAndModify模拟为1毫秒的往返。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserIdAllocatorTest {
+	//~ Static fields/constants/initializer
+
+	static final int BLOCK_SIZE = 500;
+	static final int LOW_WATER = 100;
+
+	//~ Instance fields
+
+	AtomicLong seq = new AtomicLong();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Test
+	public void testLowLoadUsesEveryId() throws InterruptedException {
+		UserIdAllocator allocator = allocator();
+		int ids = 20_000;
+		for (long expected = 1; expected <= ids; expected++) {
+			// 每次分配之间约20微秒，低水位的100个id足够覆盖一次预留
+			long until = System.nanoTime() + 20_000;
+			while (System.nanoTime() < until) {
+			}
+			assertEquals(expected, allocator.next().block(Duration.ofSeconds(5)).longValue());
+		}
+		// id连续，用到的段数是最少的；最后一段到达低水位时预留的下一段还没有使用
+		long used = (ids + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		// 预留完成时才计数，负载高时最后一段的预留可能还在进行中
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (blocks(allocator) <= used && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		long reserved = blocks(allocator);
+		assertEquals(used, reserved - 1);
+		assertEquals(used * BLOCK_SIZE, seq.get() - BLOCK_SIZE);
+	}
+
+	private static long blocks(UserIdAllocator allocator) {
+		return ((Number) allocator.stats().get("blocks")).longValue();
+	}
+
+	private UserIdAllocator allocator() {
+		ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+		when(template.getCollectionName(User.class)).thenReturn("users");
+		when(template.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), eq("counters")))
+				.thenAnswer(invocation -> Mono.delay(Duration.ofMillis(1))
+						.map(tick -> new Document("seq", seq.addAndGet(BLOCK_SIZE))));
+		UserIdAllocator allocator = new UserIdAllocator();
+		ReflectionTestUtils.setField(allocator, "mongoTemplate", template);
+		ReflectionTestUtils.setField(allocator, "blockSize", BLOCK_SIZE);
+		ReflectionTestUtils.setField(allocator, "lowWater", LOW_WATER);
+		// 计数器已经初始化，不查询users集合
+		ReflectionTestUtils.setField(allocator, "seeded", true);
+		allocator.init();
+		return allocator;
+	}
+}
@@ -0,0 +1,53 @@
+package com.koobyte.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 连接池由Spring Boot根据{@code spring.r2dbc.pool.*}创建，这里把它包装成{@link MeteredConnectionFactory}以统计获取连接的耗时，
+ * 开启慢查询监听时再包装一层r2dbc-proxy，由{@link SlowQueryListener}监听执行的SQL。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class ConnectionPoolConfig {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	public static BeanPostProcessor meteredConnectionPoolPostProcessor(ObjectProvider<SlowQueryListener> slowQueryListener,
+	                                                                   Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof ConnectionPool)) {
+					return bean;
+				}
+				MeteredConnectionFactory metered = new MeteredConnectionFactory((ConnectionPool) bean);
+				if (!environment.getProperty("user.slow-query.enabled", Boolean.class, true)) {
+					return metered;
+				}
+				// 连接池创建时其他BeanPostProcessor都已经注册，监听器可以正常注入配置
+				SlowQueryListener listener = slowQueryListener.getObject();
+				listener.setConnectionFactory(metered);
+				return ProxyConnectionFactory.builder(metered).listener(listener).build();
+			}
+		};
+	}
+}
@@ -0,0 +1,112 @@
+package com.koobyte.config;
+
+import com.koobyte.entity.Indexed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 应用启动后为实体中标注了{@link Indexed}的字段创建索引：先查询information_schema，该列还不是任何索引的第一列时才创建，
+ * 已经存在的索引不会重复创建，也不会被修改或删除。
+ * <p>
+ * 通过{@code user.index.auto-create}开关，生产环境可以关闭，改为由DBA执行DDL。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class IndexInitializer {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(IndexInitializer.class);
+
+	//~ Instance fields
+
+	@Resource
+	private R2dbcMappingContext mappingContext;
+
+	@Resource
+	private DatabaseClient databaseClient;
+
+	@Value("${user.index.auto-create:true}")
+	private boolean autoCreate;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void createIndexes() {
+		if (!autoCreate) {
+			return;
+		}
+		Flux.fromIterable(indexes())
+				.concatMap(this::ensureIndex)
+				.subscribe(index -> log.info("Created index {}", index),
+						e -> log.error("Failed to create indexes", e));
+	}
+
+	private List<Index> indexes() {
+		List<Index> indexes = new ArrayList<>();
+		for (RelationalPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+			String table = entity.getTableName().getReference();
+			for (RelationalPersistentProperty property : entity) {
+				Indexed indexed = property.findAnnotation(Indexed.class);
+				if (indexed != null) {
+					String column = property.getColumnName().getReference();
+					String name = StringUtils.hasText(indexed.name()) ? indexed.name() : "idx_" + table + "_" + column;
+					indexes.add(new Index(table, column, name, indexed.unique()));
+				}
+			}
+		}
+		return indexes;
+	}
+
+	// 返回新创建的索引名，已经存在时为空
+	private Mono<String> ensureIndex(Index index) {
+		return databaseClient.sql("SELECT COUNT(*) FROM information_schema.statistics " +
+				"WHERE table_schema = DATABASE() AND table_name = :table AND column_name = :column AND seq_in_index = 1")
+				.bind("table", index.table)
+				.bind("column", index.column)
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.filter(count -> count == 0)
+				// 表名和列名来自实体映射，不是外部输入
+				.flatMap(count -> databaseClient.sql("CREATE " + (index.unique ? "UNIQUE " : "") + "INDEX " + index.name +
+						" ON " + index.table + " (" + index.column + ")")
+						.then()
+						.thenReturn(index.name));
+	}
+
+	// 单列索引定义
+	private static final class Index {
+		final String table;
+		final String column;
+		final String name;
+		final boolean unique;
+
+		Index(String table, String column, String name, boolean unique) {
+			this.table = table;
+			this.column = column;
+			this.name = name;
+			this.unique = unique;
+		}
+	}
+}
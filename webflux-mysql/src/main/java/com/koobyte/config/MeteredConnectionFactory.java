@@ -0,0 +1,84 @@
+package com.koobyte.config;
+
+import com.koobyte.webflux.common.LatencyHistogram;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 包装连接池，统计获取连接的耗时分布和失败次数（包括获取超时），并暴露连接池的实时状态。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final ConnectionPool pool;
+	private final LatencyHistogram acquireLatency = new LatencyHistogram();
+	private final LongAdder acquireErrors = new LongAdder();
+
+	//~ Constructors
+
+	public MeteredConnectionFactory(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	//~ Methods
+
+	@Override
+	public Mono<Connection> create() {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return pool.create()
+					.doOnSuccess(connection -> acquireLatency.record(System.nanoTime() - start))
+					.doOnError(e -> acquireErrors.increment());
+		});
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return pool.getMetadata();
+	}
+
+	@Override
+	public ConnectionFactory unwrap() {
+		return pool;
+	}
+
+	@Override
+	public void close() {
+		pool.close();
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		pool.getMetrics().ifPresent(metrics -> putPoolMetrics(map, metrics));
+		map.put("acquireErrors", acquireErrors.sum());
+		map.put("acquireLatency", acquireLatency.snapshot());
+		return map;
+	}
+
+	private void putPoolMetrics(Map<String, Object> map, PoolMetrics metrics) {
+		map.put("acquired", metrics.acquiredSize());
+		map.put("allocated", metrics.allocatedSize());
+		map.put("idle", metrics.idleSize());
+		map.put("pendingAcquire", metrics.pendingAcquireSize());
+		map.put("maxAllocated", metrics.getMaxAllocatedSize());
+		map.put("maxPendingAcquire", metrics.getMaxPendingAcquireSize());
+	}
+}
@@ -0,0 +1,213 @@
+package com.koobyte.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.r2dbc.proxy.core.Binding;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 慢查询监听：执行时间超过{@code user.slow-query.threshold}的SQL，用相同的参数在另一个连接上执行EXPLAIN，
+ * 执行计划中有type=ALL（全表扫描）时输出警告，最近的慢查询和执行计划可以通过/stats/slow-queries查看。
+ * <p>
+ * 挂在r2dbc-proxy上，位于所有Repository之下，派生查询、{@code @Query}和DatabaseClient执行的SQL都能看到。执行时间是从执行语句到
+ * 结果流结束，流式读取大量数据时包括消费的时间。
+ * <p>
+ * 执行计划按SQL文本缓存{@code user.slow-query.explain-ttl}，同一条SQL反复变慢时（往往是数据库整体变慢）不会每次都EXPLAIN，
+ * 给已经很忙的数据库再加负载；同时进行的EXPLAIN不超过{@code user.slow-query.explain-concurrency}个，超过时只记录慢查询。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class SlowQueryListener implements ProxyExecutionListener {
+	//~ Static fields/constants/initializer
+
+	private static final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+	// MySQL能够EXPLAIN的语句
+	private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|UPDATE|DELETE)\\b", Pattern.CASE_INSENSITIVE);
+
+	// 缓存的执行计划的条数
+	private static final int MAX_PLANS = 1000;
+
+	//~ Instance fields
+
+	@Value("${user.slow-query.threshold:100ms}")
+	private Duration threshold;
+
+	@Value("${user.slow-query.explain:true}")
+	private boolean explain;
+
+	@Value("${user.slow-query.explain-ttl:10m}")
+	private Duration explainTtl;
+
+	@Value("${user.slow-query.explain-concurrency:2}")
+	private int explainConcurrency;
+
+	// 保留最近的慢查询条数
+	@Value("${user.slow-query.history:50}")
+	private int history;
+
+	// 执行EXPLAIN的连接工厂，不经过代理，避免EXPLAIN本身再被监听
+	private ConnectionFactory connectionFactory;
+
+	// 按SQL文本缓存执行计划，缓存的是EXPLAIN中的Future，同一条SQL同时变慢时只执行一次
+	private AsyncCache<String, List<Map<String, Object>>> plans;
+	private Semaphore explains;
+
+	private final Deque<Map<String, Object>> recent = new ConcurrentLinkedDeque<>();
+	private final LongAdder slowQueries = new LongAdder();
+	private final LongAdder fullScans = new LongAdder();
+	private final LongAdder explainsSkipped = new LongAdder();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		plans = Caffeine.newBuilder()
+				.maximumSize(MAX_PLANS)
+				.expireAfterWrite(explainTtl)
+				.buildAsync();
+		explains = new Semaphore(explainConcurrency);
+	}
+
+	public void setConnectionFactory(ConnectionFactory connectionFactory) {
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Override
+	public void afterQuery(QueryExecutionInfo execInfo) {
+		Duration duration = execInfo.getExecuteDuration();
+		if (!execInfo.isSuccess() || duration.compareTo(threshold) < 0) {
+			return;
+		}
+		for (QueryInfo query : execInfo.getQueries()) {
+			slowQueries.increment();
+			String sql = query.getQuery();
+			// 批量执行时只用第一组参数
+			Bindings bindings = query.getBindingsList().isEmpty() ? null : query.getBindingsList().get(0);
+			if (!explain || connectionFactory == null || !EXPLAINABLE.matcher(sql).lookingAt()) {
+				record(sql, duration, null, null);
+				continue;
+			}
+			plan(sql, bindings).subscribe(plan -> record(sql, duration, plan, null),
+					e -> record(sql, duration, null, e.getMessage()));
+		}
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("threshold", threshold.toMillis());
+		map.put("slowQueries", slowQueries.sum());
+		map.put("fullScans", fullScans.sum());
+		map.put("cachedPlans", plans.synchronous().estimatedSize());
+		map.put("explainsSkipped", explainsSkipped.sum());
+		map.put("recent", new ArrayList<>(recent));
+		return map;
+	}
+
+	// EXPLAIN失败或者被跳过时Future以异常结束，Caffeine不缓存，下次变慢时重试
+	private Mono<List<Map<String, Object>>> plan(String sql, Bindings bindings) {
+		return Mono.fromFuture(() -> plans.get(sql, (key, executor) -> {
+			if (!explains.tryAcquire()) {
+				explainsSkipped.increment();
+				CompletableFuture<List<Map<String, Object>>> skipped = new CompletableFuture<>();
+				skipped.completeExceptionally(new IllegalStateException("Too many concurrent explains, skipped"));
+				return skipped;
+			}
+			return explain(sql, bindings).doFinally(signal -> explains.release()).toFuture();
+		}));
+	}
+
+	private Mono<List<Map<String, Object>>> explain(String sql, Bindings bindings) {
+		return Mono.usingWhen(connectionFactory.create(),
+				connection -> Flux.from(bind(connection, "EXPLAIN " + sql, bindings).execute())
+						.flatMap(result -> result.map(SlowQueryListener::toMap))
+						.collectList(),
+				Connection::close);
+	}
+
+	private Statement bind(Connection connection, String sql, Bindings bindings) {
+		Statement statement = connection.createStatement(sql);
+		if (bindings != null) {
+			for (Binding binding : bindings.getIndexBindings()) {
+				int index = (Integer) binding.getKey();
+				if (binding.getBoundValue().isNull()) {
+					statement.bindNull(index, binding.getBoundValue().getNullType());
+				} else {
+					statement.bind(index, binding.getBoundValue().getValue());
+				}
+			}
+			for (Binding binding : bindings.getNamedBindings()) {
+				String name = (String) binding.getKey();
+				if (binding.getBoundValue().isNull()) {
+					statement.bindNull(name, binding.getBoundValue().getNullType());
+				} else {
+					statement.bind(name, binding.getBoundValue().getValue());
+				}
+			}
+		}
+		return statement;
+	}
+
+	private void record(String sql, Duration duration, List<Map<String, Object>> plan, String error) {
+		boolean fullScan = plan != null && plan.stream().anyMatch(row -> "ALL".equals(row.get("type")));
+		if (fullScan) {
+			fullScans.increment();
+			log.warn("Full table scan in slow query ({} ms): {} plan={}", duration.toMillis(), sql, plan);
+		} else {
+			log.info("Slow query ({} ms): {}", duration.toMillis(), sql);
+		}
+		Map<String, Object> entry = new LinkedHashMap<>();
+		entry.put("sql", sql);
+		entry.put("millis", duration.toMillis());
+		entry.put("fullScan", fullScan);
+		entry.put("plan", plan);
+		entry.put("explainError", error);
+		recent.addFirst(entry);
+		// 并发时可能短暂超过上限
+		while (recent.size() > history) {
+			recent.pollLast();
+		}
+	}
+
+	private static Map<String, Object> toMap(Row row, RowMetadata metadata) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String column : metadata.getColumnNames()) {
+			map.put(column, row.get(column));
+		}
+		return map;
+	}
+}
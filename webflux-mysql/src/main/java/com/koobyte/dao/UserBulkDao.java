@@ -0,0 +1,29 @@
+package com.koobyte.dao;
+
+import com.koobyte.entity.User;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 用户批量写入，作为{@link UserDao}的自定义片段，由{@link UserBulkDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserBulkDao {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 使用一条多行INSERT语句写入一批用户，一个批次只需要一次数据库往返。
+	 *
+	 * @param users 待写入的用户，不能为空列表
+	 * @return 按写入顺序返回生成的id
+	 */
+	Flux<Long> insertAll(List<User> users);
+}
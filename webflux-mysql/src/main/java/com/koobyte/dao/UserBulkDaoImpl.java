@@ -0,0 +1,66 @@
+package com.koobyte.dao;
+
+import com.koobyte.entity.User;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserBulkDaoImpl implements UserBulkDao {
+	//~ Static fields/constants/initializer
+
+	private static final String INSERT_PREFIX = "INSERT INTO user (name, age, email) VALUES ";
+
+	//~ Instance fields
+
+	@Resource
+	private DatabaseClient databaseClient;
+
+	// 自增步长，只需要查询一次
+	private final Mono<Long> autoIncrementIncrement = Mono.defer(() -> databaseClient
+			.sql("SELECT @@auto_increment_increment AS step")
+			.map(row -> row.get("step", Long.class))
+			.one())
+			.cache();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<Long> insertAll(List<User> users) {
+		Assert.notEmpty(users, "Users must not be empty");
+		StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+		for (int i = 0; i < users.size(); i++) {
+			sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+		}
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+		int index = 0;
+		for (User user : users) {
+			spec = bind(spec, index++, user.getName(), String.class);
+			spec = bind(spec, index++, user.getAge(), Integer.class);
+			spec = bind(spec, index++, user.getEmail(), String.class);
+		}
+		// 多行INSERT只返回第一行的自增id，同一条语句分配的id是连续的，与Connector/J的getGeneratedKeys处理方式一致
+		return spec.filter(statement -> statement.returnGeneratedValues("id"))
+				.map(row -> row.get("id", Long.class))
+				.one()
+				.zipWith(autoIncrementIncrement)
+				.flatMapMany(t -> Flux.range(0, users.size()).map(i -> t.getT1() + i * t.getT2()));
+	}
+
+	private DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index, Object value,
+	                                               Class<?> type) {
+		return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+	}
+}
@@ -1,8 +1,11 @@
 package com.koobyte.dao;
 
 import com.koobyte.entity.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Created by sun on 2021/7/30.
@@ -10,11 +13,30 @@ import reactor.core.publisher.Flux;
  * @author sunfuchang03@126.com
  * @since 1.0
  */
-public interface UserDao extends ReactiveCrudRepository<User, Long> {
+public interface UserDao extends ReactiveCrudRepository<User, Long>, UserBulkDao, UserProjectionDao,
+		UserStatsDao {
 	//~ Constants/Initializer
 
 
 	//~ Interfaces
 
 	Flux<User> findByName(String name);
+
+	// 基于id的游标分页（keyset），通过主键索引定位，任意深度的分页与第一页开销相同
+	@Query("SELECT * FROM user WHERE id > :after ORDER BY id LIMIT :limit")
+	Flux<User> findPage(Long after, int limit);
+
+	// 从指定id之后按id顺序流式读取，用于断点续传
+	@Query("SELECT * FROM user WHERE id > :after ORDER BY id")
+	Flux<User> findAllAfter(Long after);
+
+	// 按id更新全部字段，返回影响行数，r2dbc-mysql默认开启CLIENT_FOUND_ROWS，数据没有变化时也返回匹配的行数
+	@Modifying
+	@Query("UPDATE user SET name = :name, age = :age, email = :email WHERE id = :id")
+	Mono<Integer> updateById(Long id, String name, Integer age, String email);
+
+	// 按id删除，返回影响行数
+	@Modifying
+	@Query("DELETE FROM user WHERE id = :id")
+	Mono<Integer> removeById(Long id);
 }
@@ -0,0 +1,34 @@
+package com.koobyte.dao;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户字段投影查询，只查询、解码需要的列，作为{@link UserDao}的自定义片段，由{@link UserProjectionDaoImpl}实现。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public interface UserProjectionDao {
+	//~ Constants/Initializer
+
+	// 可以投影的列，列名会拼接到SQL中，只允许这些值
+	Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("id", "name", "age", "email")));
+
+	//~ Interfaces
+
+	Flux<Map<String, Object>> findAllFields(Collection<String> fields);
+
+	Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields);
+
+	Flux<Map<String, Object>> findFieldsByName(String name, Collection<String> fields);
+}
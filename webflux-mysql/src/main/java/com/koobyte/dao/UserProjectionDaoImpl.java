@@ -0,0 +1,60 @@
+package com.koobyte.dao;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserProjectionDaoImpl implements UserProjectionDao {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private DatabaseClient databaseClient;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<Map<String, Object>> findAllFields(Collection<String> fields) {
+		return databaseClient.sql(select(fields))
+				.fetch()
+				.all();
+	}
+
+	@Override
+	public Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields) {
+		return databaseClient.sql(select(fields) + " WHERE id = :id")
+				.bind("id", id)
+				.fetch()
+				.one();
+	}
+
+	@Override
+	public Flux<Map<String, Object>> findFieldsByName(String name, Collection<String> fields) {
+		return databaseClient.sql(select(fields) + " WHERE name = :name")
+				.bind("name", name)
+				.fetch()
+				.all();
+	}
+
+	private String select(Collection<String> fields) {
+		Assert.notEmpty(fields, "Fields must not be empty");
+		Assert.isTrue(FIELDS.containsAll(fields), () -> "Unknown fields: " + fields);
+		return "SELECT " + String.join(", ", fields) + " FROM user";
+	}
+}
@@ -0,0 +1,51 @@
+package com.koobyte.dao;
+
+import com.koobyte.entity.AgeBucket;
+import com.koobyte.entity.DomainCount;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.Resource;
+
+/**
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserStatsDaoImpl implements UserStatsDao {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private DatabaseClient databaseClient;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public Flux<AgeBucket> countByAge(int width) {
+		// DIV是整数除法，结果为BIGINT
+		return databaseClient.sql("SELECT age DIV :width * :width AS bucket, COUNT(*) AS count FROM user " +
+				"WHERE age IS NOT NULL GROUP BY bucket ORDER BY bucket")
+				.bind("width", width)
+				.map(row -> {
+					long from = row.get("bucket", Long.class);
+					return new AgeBucket(from, from + width, row.get("count", Long.class));
+				})
+				.all();
+	}
+
+	@Override
+	public Flux<DomainCount> countByEmailDomain(int limit) {
+		return databaseClient.sql("SELECT LOWER(SUBSTRING_INDEX(email, '@', -1)) AS domain, COUNT(*) AS count FROM user " +
+				"WHERE email LIKE '%@%' GROUP BY domain ORDER BY count DESC LIMIT :limit")
+				.bind("limit", limit)
+				.map(row -> new DomainCount(row.get("domain", String.class), row.get("count", Long.class)))
+				.all();
+	}
+}
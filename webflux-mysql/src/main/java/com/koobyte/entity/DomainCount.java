@@ -0,0 +1,44 @@
+package com.koobyte.entity;
+
+/**
+ * 某个邮箱域名下的用户数。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class DomainCount {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final String domain;
+	private final long count;
+
+	//~ Constructors
+
+	public DomainCount(String domain, long count) {
+		this.domain = domain;
+		this.count = count;
+	}
+
+	//~ Methods
+
+	public String getDomain() {
+		return domain;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "DomainCount{" +
+				"domain='" + domain + '\'' +
+				", count=" + count +
+				'}';
+	}
+}
@@ -0,0 +1,32 @@
+package com.koobyte.entity;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明需要索引的字段，应用启动时由{@link com.koobyte.config.IndexInitializer}检查并创建缺少的单列索引。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Indexed {
+	//~ Constants/Initializer
+
+
+	//~ Interfaces
+
+	/**
+	 * 索引名，默认为idx_表名_列名。
+	 */
+	String name() default "";
+
+	boolean unique() default false;
+}
@@ -18,8 +18,11 @@ public class User {
 
 	@Id
 	private Long id;
+	@Indexed
 	private String name;
+	@Indexed
 	private Integer age;
+	@Indexed
 	private String email;
 
 	//~ Constructors
@@ -0,0 +1,72 @@
+package com.koobyte.entity;
+
+/**
+ * 用户数据的变更事件。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserChange {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	// 变更序号，单调递增，快照事件为0
+	private final long sequence;
+	private final Type type;
+	private final Long id;
+	// 删除事件为空
+	private final User user;
+
+	//~ Constructors
+
+	public UserChange(long sequence, Type type, Long id, User user) {
+		this.sequence = sequence;
+		this.type = type;
+		this.id = id;
+		this.user = user;
+	}
+
+	//~ Methods
+
+	public static UserChange snapshot(User user) {
+		return new UserChange(0, Type.SNAPSHOT, user.getId(), user);
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	@Override
+	public String toString() {
+		return "UserChange{" +
+				"sequence=" + sequence +
+				", type=" + type +
+				", id=" + id +
+				", user=" + user +
+				'}';
+	}
+
+	public enum Type {
+		// 快照，snapshot-then-follow模式下先推送的当前数据
+		SNAPSHOT,
+		CREATED,
+		UPDATED,
+		DELETED
+	}
+}
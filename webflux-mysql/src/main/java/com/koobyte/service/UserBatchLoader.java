@@ -0,0 +1,147 @@
+package com.koobyte.service;
+
+import com.koobyte.dao.UserDao;
+import com.koobyte.entity.User;
+import com.koobyte.webflux.common.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量加载用户，类似DataLoader：收集一个时间窗口内（或者达到最大批次大小）的id，合并成一次findAllById（IN查询），
+ * 再把每条数据分发给请求它的Mono。
+ * <p>
+ * 通过{@code user.batch-loader.*}配置，关闭时直接按id查询。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserBatchLoader {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private UserDao userDao;
+
+	@Value("${user.batch-loader.enabled:true}")
+	private boolean enabled;
+
+	// 收集id的时间窗口
+	@Value("${user.batch-loader.window:2ms}")
+	private Duration window;
+
+	@Value("${user.batch-loader.max-batch-size:100}")
+	private int maxBatchSize;
+
+	// 同时执行的批量查询数
+	@Value("${user.batch-loader.max-concurrency:8}")
+	private int maxConcurrency;
+
+	private final Sinks.Many<Request> requests = Sinks.many().unicast().onBackpressureBuffer();
+	private Disposable dispatcher;
+
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder keys = new LongAdder();
+	private final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+	// 从请求id到批量查询发出的等待时间
+	private final LatencyHistogram waitTime = new LatencyHistogram();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void start() {
+		dispatcher = requests.asFlux()
+				.bufferTimeout(maxBatchSize, window)
+				// bufferTimeout不支持背压，先缓冲批次，再限制并发查询数
+				.onBackpressureBuffer()
+				.flatMap(this::dispatch, maxConcurrency)
+				.subscribe();
+	}
+
+	@PreDestroy
+	public void stop() {
+		dispatcher.dispose();
+	}
+
+	public Mono<User> load(Long id) {
+		if (!enabled) {
+			return userDao.findById(id);
+		}
+		return Mono.create(sink -> requests.emitNext(new Request(id, sink, System.nanoTime()),
+				// 其他线程正在发送时重试，直到发送成功
+				(signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED));
+	}
+
+	public Map<String, Object> stats() {
+		long batchCount = batches.sum();
+		long keyCount = keys.sum();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("enabled", enabled);
+		map.put("batches", batchCount);
+		map.put("keys", keyCount);
+		map.put("averageBatchSize", batchCount == 0 ? 0 : (double) keyCount / batchCount);
+		map.put("maxBatchSize", maxBatch.get());
+		map.put("waitTime", waitTime.snapshot());
+		return map;
+	}
+
+	private Mono<Void> dispatch(List<Request> batch) {
+		long now = System.nanoTime();
+		Set<Long> ids = new LinkedHashSet<>();
+		for (Request request : batch) {
+			ids.add(request.id);
+			waitTime.record(now - request.createdAt);
+		}
+		batches.increment();
+		keys.add(batch.size());
+		maxBatch.accumulate(batch.size());
+		return userDao.findAllById(ids)
+				.collectMap(User::getId)
+				.doOnNext(users -> {
+					for (Request request : batch) {
+						// 不存在的id返回空
+						request.sink.success(users.get(request.id));
+					}
+				})
+				.doOnError(e -> batch.forEach(request -> request.sink.error(e)))
+				.onErrorResume(e -> Mono.empty())
+				.then();
+	}
+
+	// 等待批量查询的请求
+	private static class Request {
+		final Long id;
+		final MonoSink<User> sink;
+		final long createdAt;
+
+		Request(Long id, MonoSink<User> sink, long createdAt) {
+			this.id = id;
+			this.sink = sink;
+			this.createdAt = createdAt;
+		}
+	}
+}
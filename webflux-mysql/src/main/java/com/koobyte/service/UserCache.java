@@ -0,0 +1,107 @@
+package com.koobyte.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.koobyte.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 用户读穿透缓存，缓存的是查询中的Future而不是查询结果，同一个id并发未命中时只会查询一次数据库。
+ * <p>
+ * 容量和过期时间通过{@code user.cache.*}配置，查询结果为空不会被缓存。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserCache {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Value("${user.cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${user.cache.maximum-size:10000}")
+	private long maximumSize;
+
+	@Value("${user.cache.expire-after-write:60s}")
+	private Duration expireAfterWrite;
+
+	private AsyncCache<Long, User> cache;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void init() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.buildAsync();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 从缓存中获取，未命中时通过loader加载。
+	 * <p>
+	 * 订阅者取消订阅不会取消正在进行的查询，其他等待同一个id的订阅者仍然可以拿到结果。
+	 */
+	public Mono<User> get(Long id, Function<Long, Mono<User>> loader) {
+		if (!enabled) {
+			return loader.apply(id);
+		}
+		// toFuture()在结果为空时返回null，Caffeine不会缓存值为null的Future
+		return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()));
+	}
+
+	/**
+	 * 写入后直接放入缓存，会覆盖正在进行的旧查询，避免旧数据被回填。
+	 */
+	public void put(User user) {
+		if (enabled && user.getId() != null) {
+			cache.put(user.getId(), CompletableFuture.completedFuture(user));
+		}
+	}
+
+	public void invalidate(Long id) {
+		if (enabled) {
+			cache.synchronous().invalidate(id);
+		}
+	}
+
+	public Map<String, Object> stats() {
+		CacheStats stats = cache.synchronous().stats();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("enabled", enabled);
+		map.put("size", cache.synchronous().estimatedSize());
+		map.put("maximumSize", maximumSize);
+		map.put("hitCount", stats.hitCount());
+		map.put("missCount", stats.missCount());
+		map.put("hitRate", stats.hitRate());
+		map.put("evictionCount", stats.evictionCount());
+		map.put("loadSuccessCount", stats.loadSuccessCount());
+		map.put("loadFailureCount", stats.loadFailureCount());
+		map.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+		return map;
+	}
+}
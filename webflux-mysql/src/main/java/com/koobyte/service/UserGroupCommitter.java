@@ -0,0 +1,153 @@
+package com.koobyte.service;
+
+import com.koobyte.dao.UserDao;
+import com.koobyte.entity.User;
+import com.koobyte.webflux.common.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 组提交：把并发的新增请求放入缓冲区，攒够{@code max-batch-size}条或者等待{@code max-delay}后用一条多行INSERT写入，
+ * 批次提交后每个请求各自拿到生成的id。
+ * <p>
+ * 缓冲区的容量通过原子计数限制，没有加锁，缓冲区满时直接返回503，避免过载时无限堆积。通过{@code user.group-commit.*}配置。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+public class UserGroupCommitter {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private UserDao userDao;
+
+	@Value("${user.group-commit.enabled:false}")
+	private boolean enabled;
+
+	@Value("${user.group-commit.max-batch-size:100}")
+	private int maxBatchSize;
+
+	@Value("${user.group-commit.max-delay:5ms}")
+	private Duration maxDelay;
+
+	// 缓冲区容量，包括正在写入的请求
+	@Value("${user.group-commit.capacity:10000}")
+	private int capacity;
+
+	private final Sinks.Many<Pending> requests = Sinks.many().unicast().onBackpressureBuffer();
+	private final AtomicInteger pending = new AtomicInteger();
+	private Disposable flusher;
+
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LatencyHistogram flushTime = new LatencyHistogram();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@PostConstruct
+	public void start() {
+		flusher = requests.asFlux()
+				.bufferTimeout(maxBatchSize, maxDelay)
+				.onBackpressureBuffer()
+				// 按顺序一批一批写入
+				.concatMap(this::flush)
+				.subscribe();
+	}
+
+	@PreDestroy
+	public void stop() {
+		flusher.dispose();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public Mono<User> add(User user) {
+		return Mono.create(sink -> {
+			if (pending.incrementAndGet() > capacity) {
+				pending.decrementAndGet();
+				rejected.increment();
+				sink.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Group commit buffer is full"));
+				return;
+			}
+			requests.emitNext(new Pending(user, sink),
+					// 其他线程正在发送时重试，直到发送成功
+					(signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+		});
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("enabled", enabled);
+		map.put("pending", pending.get());
+		map.put("capacity", capacity);
+		map.put("batches", batches.sum());
+		map.put("rows", rows.sum());
+		map.put("rejected", rejected.sum());
+		map.put("flushTime", flushTime.snapshot());
+		return map;
+	}
+
+	private Mono<Void> flush(List<Pending> batch) {
+		List<User> users = new ArrayList<>(batch.size());
+		for (Pending p : batch) {
+			users.add(p.user);
+		}
+		long start = System.nanoTime();
+		return userDao.insertAll(users)
+				.collectList()
+				.doOnNext(ids -> {
+					batches.increment();
+					rows.add(batch.size());
+					flushTime.record(System.nanoTime() - start);
+					for (int i = 0; i < batch.size(); i++) {
+						Pending p = batch.get(i);
+						p.user.setId(ids.get(i));
+						p.sink.success(p.user);
+					}
+				})
+				.doOnError(e -> batch.forEach(p -> p.sink.error(e)))
+				.doFinally(signal -> pending.addAndGet(-batch.size()))
+				.onErrorResume(e -> Mono.empty())
+				.then();
+	}
+
+	// 等待写入的请求
+	private static class Pending {
+		final User user;
+		final MonoSink<User> sink;
+
+		Pending(User user, MonoSink<User> sink) {
+			this.user = user;
+			this.sink = sink;
+		}
+	}
+}
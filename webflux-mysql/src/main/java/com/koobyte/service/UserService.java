@@ -1,15 +1,22 @@
 package com.koobyte.service;
 
 import com.koobyte.dao.UserDao;
+import com.koobyte.entity.AgeBucket;
+import com.koobyte.entity.DomainCount;
 import com.koobyte.entity.User;
+import com.koobyte.entity.UserChange;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Created by sun on 2021/7/30.
@@ -27,42 +34,186 @@ public class UserService {
 	@Resource
 	private UserDao userDao;
 
+	@Resource
+	private UserCache userCache;
+
+	@Resource
+	private UserBatchLoader userBatchLoader;
+
+	@Resource
+	private UserGroupCommitter userGroupCommitter;
+
+	@Resource
+	private UserChangeFeed userChangeFeed;
+
+	// 批量写入时每条INSERT语句包含的行数
+	@Value("${user.bulk.batch-size:500}")
+	private int bulkBatchSize;
+
+	// 合并同一个id的并发查询
+	private final SingleFlight<Long, User> findOneFlight = new SingleFlight<>();
+
 	//~ Constructors
 
 
 	//~ Methods
 
+	/**
+	 * 新增用户，开启组提交时新用户会和其他并发请求合并成一条多行INSERT写入。
+	 */
 	public Mono<User> add(User user) {
-		return this.userDao.save(user);
+		boolean isNew = user.getId() == null;
+		Mono<User> saved = userGroupCommitter.isEnabled() && isNew
+				? userGroupCommitter.add(user)
+				: this.userDao.save(user);
+		saved = saved.doOnNext(u -> {
+			userCache.put(u);
+			// 带id保存时save执行的是更新
+			if (isNew) {
+				userChangeFeed.created(u);
+			} else {
+				userChangeFeed.updated(u);
+			}
+		});
+		return isNew ? saved : invalidateUnlessCompleted(saved, user.getId());
+	}
+
+	/**
+	 * 批量写入用户，按{@code user.bulk.batch-size}分批，每批一条多行INSERT语句。
+	 * <p>
+	 * 同一时间只有一个批次在执行，上一批提交后才会继续请求数据，从而对请求体施加背压，每批提交后立即返回该批生成的id。
+	 */
+	public Flux<Long> addAll(Flux<User> users) {
+		return users.buffer(bulkBatchSize)
+				.concatMap(batch -> userDao.insertAll(batch)
+						.collectList()
+						.doOnNext(ids -> {
+							for (int i = 0; i < batch.size(); i++) {
+								User user = batch.get(i);
+								user.setId(ids.get(i));
+								userChangeFeed.created(user);
+							}
+						})
+						.flatMapIterable(ids -> ids), 1);
 	}
 
+	/**
+	 * 一条UPDATE语句完成更新，根据影响行数判断数据是否存在，存在返回200，否则返回404；失败或取消时删除缓存。
+	 */
 	public Mono<ResponseEntity<User>> update(User user) {
 		Assert.notNull(user, "User must not be null");
 		Assert.notNull(user.getId(), "User id must not be null");
-		return userDao.findById(user.getId())
-				// TODO 为什么更新成功但是数据库还是旧数据？
-				.flatMap(u -> this.userDao.save(u).then(Mono.just(new ResponseEntity<>(u, HttpStatus.OK))))
-				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+		return invalidateUnlessCompleted(userDao.updateById(user.getId(), user.getName(), user.getAge(), user.getEmail())
+				.map(rows -> {
+					if (rows == 0) {
+						userCache.invalidate(user.getId());
+						return new ResponseEntity<User>(HttpStatus.NOT_FOUND);
+					}
+					// 更新的是全部字段，新数据可以直接放入缓存
+					userCache.put(user);
+					userChangeFeed.updated(user);
+					return new ResponseEntity<>(user, HttpStatus.OK);
+				}), user.getId());
 	}
 
+	/**
+	 * 一条DELETE语句完成删除，根据影响行数判断数据是否存在，存在返回200，否则返回404；失败或取消时同样删除缓存。
+	 */
 	public Mono<ResponseEntity<User>> delete(Long id) {
 		Assert.notNull(id, "Id must not be null.");
-		return userDao.findById(id)
-				.flatMap(u -> userDao.deleteById(id).then(Mono.just(new ResponseEntity<>(u, HttpStatus.OK))))
-				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+		return invalidateUnlessCompleted(userDao.removeById(id)
+				.map(rows -> {
+					userCache.invalidate(id);
+					if (rows == 0) {
+						return new ResponseEntity<User>(HttpStatus.NOT_FOUND);
+					}
+					userChangeFeed.deleted(id);
+					return new ResponseEntity<User>(HttpStatus.OK);
+				}), id);
 	}
 
 	public Mono<User> findOne(Long id) {
 		Assert.notNull(id, "Id must not be null.");
-		return userDao.findById(id);
+		// 缓存开启时缓存本身已经合并了未命中的并发查询，关闭缓存时由SingleFlight合并，最终由批量加载合并成IN查询
+		return userCache.get(id, key -> findOneFlight.execute(key, userBatchLoader::load));
 	}
 
 	public Flux<User> findAll() {
 		return userDao.findAll();
 	}
 
+	/**
+	 * 查询id大于{@code after}的最多{@code limit}条数据。
+	 */
+	public Flux<User> findPage(long after, int limit) {
+		return userDao.findPage(after, limit);
+	}
+
+	/**
+	 * 按id顺序流式读取id大于{@code after}的全部数据。
+	 */
+	public Flux<User> findAllAfter(long after) {
+		return userDao.findAllAfter(after);
+	}
+
+	/**
+	 * 订阅用户变更。
+	 *
+	 * @param snapshot 为true时先推送当前全部数据的快照，再继续推送增量；增量在读取快照之前就已经开始订阅，不会遗漏，
+	 *                 但可能与快照重复，客户端按id覆盖即可
+	 */
+	public Flux<UserChange> changes(boolean snapshot) {
+		if (!snapshot) {
+			return userChangeFeed.changes();
+		}
+		return userChangeFeed.changes()
+				.publish(live -> Flux.concat(userDao.findAllAfter(Long.MIN_VALUE).map(UserChange::snapshot), live));
+	}
+
 	public Flux<User> findByName(String name) {
 		Assert.hasLength(name, "Name must not be empty");
 		return userDao.findByName(name);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 只查询指定的字段，投影下推到SELECT的列，不经过缓存。
+	 */
+	public Mono<Map<String, Object>> findOne(Long id, Collection<String> fields) {
+		Assert.notNull(id, "Id must not be null.");
+		return userDao.findFieldsById(id, fields);
+	}
+
+	public Flux<Map<String, Object>> findAll(Collection<String> fields) {
+		return userDao.findAllFields(fields);
+	}
+
+	public Flux<Map<String, Object>> findByName(String name, Collection<String> fields) {
+		Assert.hasLength(name, "Name must not be empty");
+		return userDao.findFieldsByName(name, fields);
+	}
+
+	/**
+	 * 年龄分布，在数据库中分组统计。
+	 */
+	public Flux<AgeBucket> countByAge(int width) {
+		Assert.isTrue(width > 0, "Width must be positive");
+		return userDao.countByAge(width);
+	}
+
+	/**
+	 * 各邮箱域名的用户数，在数据库中分组统计。
+	 */
+	public Flux<DomainCount> countByEmailDomain(int limit) {
+		Assert.isTrue(limit > 0, "Limit must be positive");
+		return userDao.countByEmailDomain(limit);
+	}
+
+	// 失败或取消时语句可能已经执行（例如提交后连接断开、等待结果时超时），数据库中的数据不确定，删除缓存让下次查询重新加载
+	private <T> Mono<T> invalidateUnlessCompleted(Mono<T> write, Long id) {
+		return write.doFinally(signal -> {
+			if (signal != SignalType.ON_COMPLETE) {
+				userCache.invalidate(id);
+			}
+		});
+	}
+}
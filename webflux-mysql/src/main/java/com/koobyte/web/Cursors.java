@@ -0,0 +1,48 @@
+package com.koobyte.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标的编解码，游标对客户端不透明，内容是上一页最后一条记录的id。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+final class Cursors {
+	//~ Static fields/constants/initializer
+
+	// 没有游标时从头开始
+	static final long START = Long.MIN_VALUE;
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+	private Cursors() {
+	}
+
+	//~ Methods
+
+	static String encode(Long id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static long decode(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return START;
+		}
+		try {
+			return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			// NumberFormatException也是IllegalArgumentException
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.koobyte.web;
+
+import com.koobyte.config.MeteredConnectionFactory;
+import com.koobyte.config.SlowQueryListener;
+import com.koobyte.service.UserBatchLoader;
+import com.koobyte.service.UserChangeFeed;
+import com.koobyte.service.UserCache;
+import com.koobyte.service.UserGroupCommitter;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.Resource;
+import java.util.Map;
+
+/**
+ * 运行时统计信息，用于观察缓存等组件的运行状况。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	@Resource
+	private UserCache userCache;
+
+	@Resource
+	private UserBatchLoader userBatchLoader;
+
+	@Resource
+	private UserChangeFeed userChangeFeed;
+
+	@Resource
+	private UserGroupCommitter userGroupCommitter;
+
+	@Resource
+	private ConnectionFactory connectionFactory;
+
+	@Resource
+	private SlowQueryListener slowQueryListener;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	// 用户缓存的命中、未命中和淘汰次数
+	@GetMapping("/user-cache")
+	public Map<String, Object> userCache() {
+		return userCache.stats();
+	}
+
+	// 批量加载的批次大小和等待时间
+	@GetMapping("/user-loader")
+	public Map<String, Object> userLoader() {
+		return userBatchLoader.stats();
+	}
+
+	// 组提交的缓冲区占用、批次数和拒绝次数
+	@GetMapping("/user-group-commit")
+	public Map<String, Object> userGroupCommit() {
+		return userGroupCommitter.stats();
+	}
+
+	// 连接池的已借出、空闲、等待获取的连接数以及获取连接的耗时分布
+	@GetMapping("/pool")
+	public Map<String, Object> pool() {
+		// 开启慢查询监听时外面还有一层r2dbc-proxy
+		ConnectionFactory factory = connectionFactory;
+		while (!(factory instanceof MeteredConnectionFactory) && factory instanceof Wrapped) {
+			factory = (ConnectionFactory) ((Wrapped<?>) factory).unwrap();
+		}
+		if (!(factory instanceof MeteredConnectionFactory)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Connection pool is disabled");
+		}
+		return ((MeteredConnectionFactory) factory).stats();
+	}
+
+	// 变更订阅的订阅者数量、已发布和因消费慢被丢弃的事件数
+	@GetMapping("/user-changes")
+	public Map<String, Object> userChanges() {
+		return userChangeFeed.stats();
+	}
+
+	// 慢查询数、其中全表扫描的次数以及最近的慢查询和执行计划
+	@GetMapping("/slow-queries")
+	public Map<String, Object> slowQueries() {
+		return slowQueryListener.stats();
+	}
+}
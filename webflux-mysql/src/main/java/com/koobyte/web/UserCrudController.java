@@ -1,16 +1,28 @@
 package com.koobyte.web;
 
+import com.koobyte.webflux.common.EventStreams;
+import com.koobyte.entity.AgeBucket;
+import com.koobyte.entity.DomainCount;
 import com.koobyte.entity.User;
+import com.koobyte.entity.UserChange;
 import com.koobyte.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Resource;
+import java.util.Map;
+import java.util.Set;
+
+import static com.koobyte.web.UserParams.*;
 
 /**
+ * 注解式的/user接口，{@code user.api.style=annotated}（默认）时生效，函数式的实现见{@link UserRouter}。
+ * <p>
  * Created by sun on 2021/6/27.
  *
  * @author sunfuchang03@126.com
@@ -18,6 +30,7 @@ import javax.annotation.Resource;
  */
 @RestController
 @RequestMapping("/user")
+@ConditionalOnProperty(name = "user.api.style", havingValue = "annotated", matchIfMissing = true)
 public class UserCrudController {
 	//~ Static fields/constants/initializer
 
@@ -27,6 +40,9 @@ public class UserCrudController {
 	@Resource
 	private UserService userService;
 
+	@Resource
+	private EventStreams eventStreams;
+
 	//~ Constructors
 
 
@@ -37,6 +53,14 @@ public class UserCrudController {
 		return userService.add(user);
 	}
 
+	// 批量写入，请求体可以是JSON数组或者NDJSON，按行返回生成的id
+	@PostMapping(value = "/bulk",
+			consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+			produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Long> addAll(@RequestBody Flux<User> users) {
+		return userService.addAll(users);
+	}
+
 	@PutMapping
 	public Mono<ResponseEntity<User>> update(@RequestBody User user) {
 		return userService.update(user);
@@ -52,18 +76,70 @@ public class UserCrudController {
 		return userService.findOne(id);
 	}
 
+	// 稀疏字段，例如?fields=id,name，只查询并返回这些字段
+	@GetMapping(value = "/{id}", params = "fields")
+	public Mono<Map<String, Object>> findOne(@PathVariable Long id, @RequestParam Set<String> fields) {
+		return userService.findOne(id, checkFields(fields));
+	}
+
 	@GetMapping("/all")
 	public Flux<User> findAll() {
 		return userService.findAll();
 	}
 
+	@GetMapping(value = "/all", params = "fields")
+	public Flux<Map<String, Object>> findAll(@RequestParam Set<String> fields) {
+		return userService.findAll(checkFields(fields));
+	}
+
+	// 游标分页，after为上一页返回的next，按id定位而不是OFFSET，深度分页不会变慢
+	@GetMapping("/page")
+	public Mono<UserPage> findPage(@RequestParam(required = false) String after,
+	                               @RequestParam(defaultValue = "20") int limit) {
+		checkLimit(limit);
+		// 多查一条用来判断是否还有下一页
+		return userService.findPage(Cursors.decode(after), limit + 1)
+				.collectList()
+				.map(users -> UserPage.of(users, limit));
+	}
+
+	// 每个事件的id就是游标，断线重连时浏览器会通过Last-Event-ID带回，从断点继续推送
 	@GetMapping(value = "/stream/all", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Flux<User> findStreamAll() {
-		return userService.findAll();
+	public Flux<ServerSentEvent<String>> findStreamAll(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		return eventStreams.stream("user-stream-all", userService.findAllAfter(Cursors.decode(lastEventId))
+				.map(user -> ServerSentEvent.builder(user).id(Cursors.encode(user.getId())).build()));
 	}
 
 	@GetMapping("/name")
 	public Flux<User> findByName(String name) {
 		return userService.findByName(name);
 	}
+
+	@GetMapping(value = "/name", params = "fields")
+	public Flux<Map<String, Object>> findByName(String name, @RequestParam Set<String> fields) {
+		return userService.findByName(name, checkFields(fields));
+	}
+
+	// 变更订阅，只推送增量，snapshot=true时先推送全量快照再继续推送增量
+	@GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> changes(@RequestParam(defaultValue = "false") boolean snapshot) {
+		return eventStreams.stream("user-changes", userService.changes(snapshot)
+				.map(change -> {
+					ServerSentEvent.Builder<UserChange> builder = ServerSentEvent.builder(change).event(change.getType().name());
+					// 快照事件没有序号
+					return change.getSequence() > 0 ? builder.id(String.valueOf(change.getSequence())).build() : builder.build();
+				}));
+	}
+
+	// 年龄分布，例如?width=10按每10岁一个区间统计
+	@GetMapping("/stats/age")
+	public Flux<AgeBucket> countByAge(@RequestParam(defaultValue = "10") int width) {
+		return userService.countByAge(checkWidth(width));
+	}
+
+	// 各邮箱域名的用户数，取用户最多的前limit个
+	@GetMapping("/stats/domain")
+	public Flux<DomainCount> countByEmailDomain(@RequestParam(defaultValue = "20") int limit) {
+		return userService.countByEmailDomain(checkLimit(limit));
+	}
 }
\ No newline at end of file
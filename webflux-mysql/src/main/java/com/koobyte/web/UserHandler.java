@@ -0,0 +1,224 @@
+package com.koobyte.web;
+
+import com.koobyte.webflux.common.EventStreams;
+import com.koobyte.entity.AgeBucket;
+import com.koobyte.entity.DomainCount;
+import com.koobyte.entity.User;
+import com.koobyte.entity.UserChange;
+import com.koobyte.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.koobyte.web.UserParams.*;
+
+/**
+ * 函数式的/user接口的处理函数，与{@link UserCrudController}的行为一致，路由见{@link UserRouter}。
+ * <p>
+ * 注解式的控制器每次请求都要通过反射解析参数、选择返回值处理器；这里直接从{@link ServerRequest}取参数，参数的类型转换
+ * 使用与注解式相同的{@link ConversionService}，转换失败同样返回400。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "user.api.style", havingValue = "functional")
+public class UserHandler {
+	//~ Static fields/constants/initializer
+
+	private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+	private static final ParameterizedTypeReference<Map<String, Object>> FIELDS =
+			new ParameterizedTypeReference<Map<String, Object>>() {
+			};
+
+	// 流式接口按Accept选择的格式，都不匹配时返回JSON数组
+	private static final List<MediaType> STREAMING_TYPES = Arrays.asList(
+			MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+	//~ Instance fields
+
+	@Resource
+	private UserService userService;
+
+	@Resource
+	private EventStreams eventStreams;
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	public Mono<ServerResponse> add(ServerRequest request) {
+		return user(request).flatMap(user -> ServerResponse.ok().body(userService.add(user), User.class));
+	}
+
+	// 批量写入，请求体可以是JSON数组或者NDJSON，按行返回生成的id
+	public Mono<ServerResponse> addAll(ServerRequest request) {
+		return ServerResponse.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(userService.addAll(request.bodyToFlux(User.class)), Long.class);
+	}
+
+	public Mono<ServerResponse> update(ServerRequest request) {
+		return user(request).flatMap(user -> toResponse(userService.update(user)));
+	}
+
+	public Mono<ServerResponse> delete(ServerRequest request) {
+		return toResponse(userService.delete(id(request)));
+	}
+
+	public Mono<ServerResponse> findOne(ServerRequest request) {
+		return ServerResponse.ok().body(userService.findOne(id(request)), User.class);
+	}
+
+	// 稀疏字段，例如?fields=id,name，只查询并返回这些字段
+	public Mono<ServerResponse> findOneFields(ServerRequest request) {
+		return ServerResponse.ok().body(userService.findOne(id(request), checkFields(fields(request))), FIELDS);
+	}
+
+	public Mono<ServerResponse> findAll(ServerRequest request) {
+		return ServerResponse.ok()
+				.contentType(streamingType(request))
+				.body(userService.findAll(), User.class);
+	}
+
+	public Mono<ServerResponse> findAllFields(ServerRequest request) {
+		return ServerResponse.ok()
+				.contentType(streamingType(request))
+				.body(userService.findAll(checkFields(fields(request))), FIELDS);
+	}
+
+	// 游标分页，after为上一页返回的next，按id定位而不是OFFSET，深度分页不会变慢
+	public Mono<ServerResponse> findPage(ServerRequest request) {
+		long after = Cursors.decode(request.queryParam("after").orElse(null));
+		int limit = checkLimit(param(request, "limit", Integer.class, 20));
+		// 多查一条用来判断是否还有下一页
+		Mono<UserPage> page = userService.findPage(after, limit + 1)
+				.collectList()
+				.map(users -> UserPage.of(users, limit));
+		return ServerResponse.ok().body(page, UserPage.class);
+	}
+
+	// 每个事件的id就是游标，断线重连时浏览器会通过Last-Event-ID带回，从断点继续推送
+	public Mono<ServerResponse> findStreamAll(ServerRequest request) {
+		long after = Cursors.decode(request.headers().firstHeader("Last-Event-ID"));
+		Flux<ServerSentEvent<User>> events = userService.findAllAfter(after)
+				.map(user -> ServerSentEvent.builder(user).id(Cursors.encode(user.getId())).build());
+		return ServerResponse.ok().body(BodyInserters.fromServerSentEvents(eventStreams.stream("user-stream-all", events)));
+	}
+
+	public Mono<ServerResponse> findByName(ServerRequest request) {
+		return ServerResponse.ok()
+				.contentType(streamingType(request))
+				.body(userService.findByName(request.queryParam("name").orElse(null)), User.class);
+	}
+
+	public Mono<ServerResponse> findByNameFields(ServerRequest request) {
+		return ServerResponse.ok()
+				.contentType(streamingType(request))
+				.body(userService.findByName(request.queryParam("name").orElse(null), checkFields(fields(request))), FIELDS);
+	}
+
+	// 变更订阅，只推送增量，snapshot=true时先推送全量快照再继续推送增量
+	public Mono<ServerResponse> changes(ServerRequest request) {
+		boolean snapshot = param(request, "snapshot", Boolean.class, false);
+		Flux<ServerSentEvent<UserChange>> events = userService.changes(snapshot)
+				.map(change -> {
+					ServerSentEvent.Builder<UserChange> builder = ServerSentEvent.builder(change).event(change.getType().name());
+					// 快照事件没有序号
+					return change.getSequence() > 0 ? builder.id(String.valueOf(change.getSequence())).build() : builder.build();
+				});
+		return ServerResponse.ok().body(BodyInserters.fromServerSentEvents(eventStreams.stream("user-changes", events)));
+	}
+
+	// 年龄分布，例如?width=10按每10岁一个区间统计
+	public Mono<ServerResponse> countByAge(ServerRequest request) {
+		int width = checkWidth(param(request, "width", Integer.class, 10));
+		return ServerResponse.ok().body(userService.countByAge(width), AgeBucket.class);
+	}
+
+	// 各邮箱域名的用户数，取用户最多的前limit个
+	public Mono<ServerResponse> countByEmailDomain(ServerRequest request) {
+		int limit = checkLimit(param(request, "limit", Integer.class, 20));
+		return ServerResponse.ok().body(userService.countByEmailDomain(limit), DomainCount.class);
+	}
+
+	private static Mono<User> user(ServerRequest request) {
+		return request.bodyToMono(User.class)
+				.switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")));
+	}
+
+	private static Long id(ServerRequest request) {
+		return convert("id", request.pathVariable("id"), Long.class);
+	}
+
+	private static <T> T param(ServerRequest request, String name, Class<T> type, T defaultValue) {
+		String value = request.queryParam(name).orElse(null);
+		return StringUtils.hasLength(value) ? convert(name, value, type) : defaultValue;
+	}
+
+	private static <T> T convert(String name, String value, Class<T> type) {
+		try {
+			return CONVERSION.convert(value, type);
+		} catch (ConversionException e) {
+			throw new ServerWebInputException("Invalid value for '" + name + "': " + value);
+		}
+	}
+
+	// 与@RequestParam Set<String>相同，支持重复的参数和逗号分隔的值
+	private static Set<String> fields(ServerRequest request) {
+		Set<String> fields = new LinkedHashSet<>();
+		for (String value : request.queryParams().getOrDefault("fields", Collections.emptyList())) {
+			for (String field : StringUtils.commaDelimitedListToStringArray(value)) {
+				if (StringUtils.hasText(field)) {
+					fields.add(field.trim());
+				}
+			}
+		}
+		return fields;
+	}
+
+	private static MediaType streamingType(ServerRequest request) {
+		for (MediaType accept : request.headers().accept()) {
+			for (MediaType type : STREAMING_TYPES) {
+				if (accept.equalsTypeAndSubtype(type)) {
+					return type;
+				}
+			}
+		}
+		return MediaType.APPLICATION_JSON;
+	}
+
+	// 服务层返回的ResponseEntity转换成ServerResponse，保留状态码和响应头
+	private static <T> Mono<ServerResponse> toResponse(Mono<ResponseEntity<T>> entity) {
+		return entity.flatMap(response -> {
+			ServerResponse.BodyBuilder builder = ServerResponse.status(response.getStatusCode())
+					.headers(headers -> headers.addAll(response.getHeaders()));
+			return response.hasBody() ? builder.bodyValue(response.getBody()) : builder.build();
+		}).switchIfEmpty(Mono.defer(() -> ServerResponse.ok().build()));
+	}
+}
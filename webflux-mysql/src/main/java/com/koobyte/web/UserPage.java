@@ -0,0 +1,51 @@
+package com.koobyte.web;
+
+import com.koobyte.entity.User;
+
+import java.util.List;
+
+/**
+ * 游标分页的一页数据，{@code next}为空表示没有下一页。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserPage {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final List<User> items;
+	private final String next;
+
+	//~ Constructors
+
+	private UserPage(List<User> items, String next) {
+		this.items = items;
+		this.next = next;
+	}
+
+	//~ Methods
+
+	/**
+	 * 根据多查询一条的结果构建分页：查询{@code limit + 1}条，多出来的那条只用来判断是否还有下一页。
+	 */
+	static UserPage of(List<User> users, int limit) {
+		if (users.size() <= limit) {
+			return new UserPage(users, null);
+		}
+		List<User> items = users.subList(0, limit);
+		return new UserPage(items, Cursors.encode(items.get(limit - 1).getId()));
+	}
+
+	public List<User> getItems() {
+		return items;
+	}
+
+	public String getNext() {
+		return next;
+	}
+}
@@ -0,0 +1,53 @@
+package com.koobyte.web;
+
+import com.koobyte.dao.UserProjectionDao;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * /user接口的参数校验，注解式的{@link UserCrudController}和函数式的{@link UserHandler}共用，两种方式的错误响应保持一致。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+final class UserParams {
+	//~ Static fields/constants/initializer
+
+	static final int MAX_PAGE_SIZE = 1000;
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+	private UserParams() {
+	}
+
+	//~ Methods
+
+	static int checkLimit(int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		return limit;
+	}
+
+	static int checkWidth(int width) {
+		if (width < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Width must be positive");
+		}
+		return width;
+	}
+
+	static Set<String> checkFields(Set<String> fields) {
+		if (fields.isEmpty() || !UserProjectionDao.FIELDS.containsAll(fields)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Fields must be a subset of " + UserProjectionDao.FIELDS);
+		}
+		return fields;
+	}
+}
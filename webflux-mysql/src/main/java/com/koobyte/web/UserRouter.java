@@ -0,0 +1,59 @@
+package com.koobyte.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * 函数式的/user接口，{@code user.api.style=functional}时代替{@link UserCrudController}，路径、参数和响应与注解式一致。
+ * <p>
+ * 路由按声明顺序匹配，固定路径要放在/{id}之前，带fields参数的路由要放在不带的之前。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.api.style", havingValue = "functional")
+public class UserRouter {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Bean
+	public RouterFunction<ServerResponse> userRoutes(UserHandler handler) {
+		return route()
+				.path("/user", builder -> builder
+						.POST("", handler::add)
+						.POST("/bulk", contentType(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON), handler::addAll)
+						.PUT("", handler::update)
+						.GET("/all", queryParam("fields", value -> true), handler::findAllFields)
+						.GET("/all", handler::findAll)
+						.GET("/page", handler::findPage)
+						.GET("/stream/all", handler::findStreamAll)
+						.GET("/name", queryParam("fields", value -> true), handler::findByNameFields)
+						.GET("/name", handler::findByName)
+						.GET("/changes", handler::changes)
+						.GET("/stats/age", handler::countByAge)
+						.GET("/stats/domain", handler::countByEmailDomain)
+						.GET("/{id}", queryParam("fields", value -> true), handler::findOneFields)
+						.GET("/{id}", handler::findOne)
+						.DELETE("/{id}", handler::delete))
+				.build();
+	}
+}
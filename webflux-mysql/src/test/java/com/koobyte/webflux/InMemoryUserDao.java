@@ -0,0 +1,299 @@
+package com.koobyte.webflux;
+
+import com.koobyte.dao.UserDao;
+import com.koobyte.entity.AgeBucket;
+import com.koobyte.entity.DomainCount;
+import com.koobyte.entity.User;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 内存中的{@link UserDao}，测试时代替MySQL放在真实的UserService后面，不需要数据库。
+ * <p>
+ * 按主键顺序保存用户的副本，语义与MySQL一致：id自增，带id的save是更新，行不存在时失败；updateById和removeById返回匹配的行数；
+ * 按name查询与默认的排序规则一样不区分大小写。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class InMemoryUserDao implements UserDao {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+	private final AtomicLong autoIncrement = new AtomicLong();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@Override
+	public <S extends User> Mono<S> save(S user) {
+		return Mono.fromCallable(() -> {
+			if (user.getId() == null) {
+				user.setId(autoIncrement.incrementAndGet());
+				users.put(user.getId(), copy(user));
+			} else if (users.replace(user.getId(), copy(user)) == null) {
+				throw new TransientDataAccessResourceException(
+						"Failed to update table [user]. Row with Id [" + user.getId() + "] does not exist.");
+			}
+			return user;
+		});
+	}
+
+	@Override
+	public <S extends User> Flux<S> saveAll(Iterable<S> users) {
+		return Flux.fromIterable(users).concatMap(this::save);
+	}
+
+	@Override
+	public <S extends User> Flux<S> saveAll(Publisher<S> users) {
+		return Flux.from(users).concatMap(this::save);
+	}
+
+	@Override
+	public Mono<User> findById(Long id) {
+		Assert.notNull(id, "Id must not be null!");
+		return Mono.fromCallable(() -> copy(users.get(id)));
+	}
+
+	@Override
+	public Mono<User> findById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::findById);
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Long id) {
+		Assert.notNull(id, "Id must not be null!");
+		return Mono.fromCallable(() -> users.containsKey(id));
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::existsById);
+	}
+
+	@Override
+	public Flux<User> findAll() {
+		return select(user -> true);
+	}
+
+	@Override
+	public Flux<User> findAllById(Iterable<Long> ids) {
+		// 与IN查询一样按主键顺序返回，重复的id只返回一次
+		return Flux.defer(() -> {
+			List<User> found = new ArrayList<>();
+			TreeSet<Long> sorted = new TreeSet<>();
+			ids.forEach(sorted::add);
+			for (Long id : sorted) {
+				User user = users.get(id);
+				if (user != null) {
+					found.add(copy(user));
+				}
+			}
+			return Flux.fromIterable(found);
+		});
+	}
+
+	@Override
+	public Flux<User> findAllById(Publisher<Long> ids) {
+		return Flux.from(ids).collectList().flatMapMany(this::findAllById);
+	}
+
+	@Override
+	public Mono<Long> count() {
+		return Mono.fromCallable(() -> (long) users.size());
+	}
+
+	@Override
+	public Mono<Void> deleteById(Long id) {
+		Assert.notNull(id, "Id must not be null!");
+		return Mono.fromRunnable(() -> users.remove(id));
+	}
+
+	@Override
+	public Mono<Void> deleteById(Publisher<Long> id) {
+		return Mono.from(id).flatMap(this::deleteById);
+	}
+
+	@Override
+	public Mono<Void> delete(User user) {
+		return deleteById(user.getId());
+	}
+
+	@Override
+	public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+		return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<? extends User> users) {
+		return Flux.fromIterable(users).concatMap(this::delete).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Publisher<? extends User> users) {
+		return Flux.from(users).concatMap(this::delete).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll() {
+		return Mono.fromRunnable(users::clear);
+	}
+
+	@Override
+	public Flux<User> findByName(String name) {
+		return select(user -> name.equalsIgnoreCase(user.getName()));
+	}
+
+	@Override
+	public Flux<User> findPage(Long after, int limit) {
+		return findAllAfter(after).take(limit);
+	}
+
+	@Override
+	public Flux<User> findAllAfter(Long after) {
+		return Flux.defer(() -> Flux.fromIterable(users.tailMap(after, false).values())).map(InMemoryUserDao::copy);
+	}
+
+	@Override
+	public Mono<Integer> updateById(Long id, String name, Integer age, String email) {
+		return Mono.fromCallable(() -> {
+			User user = new User();
+			user.setId(id);
+			user.setName(name);
+			user.setAge(age);
+			user.setEmail(email);
+			return users.replace(id, user) == null ? 0 : 1;
+		});
+	}
+
+	@Override
+	public Mono<Integer> removeById(Long id) {
+		return Mono.fromCallable(() -> users.remove(id) == null ? 0 : 1);
+	}
+
+	@Override
+	public Flux<Long> insertAll(List<User> users) {
+		Assert.notEmpty(users, "Users must not be empty");
+		// 与多行INSERT一样忽略传入的id，按顺序分配连续的自增id
+		return Flux.defer(() -> {
+			List<Long> ids = new ArrayList<>(users.size());
+			for (User user : users) {
+				User row = copy(user);
+				row.setId(autoIncrement.incrementAndGet());
+				this.users.put(row.getId(), row);
+				ids.add(row.getId());
+			}
+			return Flux.fromIterable(ids);
+		});
+	}
+
+	@Override
+	public Flux<Map<String, Object>> findAllFields(Collection<String> fields) {
+		checkFields(fields);
+		return findAll().map(user -> project(user, fields));
+	}
+
+	@Override
+	public Mono<Map<String, Object>> findFieldsById(Long id, Collection<String> fields) {
+		checkFields(fields);
+		return findById(id).map(user -> project(user, fields));
+	}
+
+	@Override
+	public Flux<Map<String, Object>> findFieldsByName(String name, Collection<String> fields) {
+		checkFields(fields);
+		return findByName(name).map(user -> project(user, fields));
+	}
+
+	@Override
+	public Flux<AgeBucket> countByAge(int width) {
+		// age DIV width * width，即区间的下界，按下界升序
+		return Flux.defer(() -> {
+			Map<Long, Long> counts = new TreeMap<>();
+			for (User user : users.values()) {
+				if (user.getAge() != null) {
+					counts.merge((long) (user.getAge() / width * width), 1L, Long::sum);
+				}
+			}
+			return Flux.fromIterable(counts.entrySet())
+					.map(bucket -> new AgeBucket(bucket.getKey(), bucket.getKey() + width, bucket.getValue()));
+		});
+	}
+
+	@Override
+	public Flux<DomainCount> countByEmailDomain(int limit) {
+		// 用户数相同的域名在MySQL中顺序不确定，这里按域名排序
+		return Flux.defer(() -> {
+			Map<String, Long> counts = new HashMap<>();
+			for (User user : users.values()) {
+				String email = user.getEmail();
+				if (email != null && email.contains("@")) {
+					counts.merge(email.substring(email.lastIndexOf('@') + 1).toLowerCase(), 1L, Long::sum);
+				}
+			}
+			return Flux.fromIterable(counts.entrySet())
+					.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+							.thenComparing(Map.Entry.comparingByKey()))
+					.take(limit)
+					.map(domain -> new DomainCount(domain.getKey(), domain.getValue()));
+		});
+	}
+
+	private Flux<User> select(Predicate<User> where) {
+		return Flux.defer(() -> Flux.fromIterable(users.values())).filter(where).map(InMemoryUserDao::copy);
+	}
+
+	// 保存和返回的都是副本，与数据库一样调用方修改对象不会影响已经保存的数据
+	private static User copy(User user) {
+		if (user == null) {
+			return null;
+		}
+		User copy = new User();
+		copy.setId(user.getId());
+		copy.setName(user.getName());
+		copy.setAge(user.getAge());
+		copy.setEmail(user.getEmail());
+		return copy;
+	}
+
+	private static void checkFields(Collection<String> fields) {
+		Assert.notEmpty(fields, "Fields must not be empty");
+		Assert.isTrue(FIELDS.containsAll(fields), () -> "Unknown fields: " + fields);
+	}
+
+	// 与SELECT的列顺序一致，为空的列也返回
+	private static Map<String, Object> project(User user, Collection<String> fields) {
+		BeanWrapper wrapper = new BeanWrapperImpl(user);
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String field : fields) {
+			map.put(field, wrapper.getPropertyValue(field));
+		}
+		return map;
+	}
+}
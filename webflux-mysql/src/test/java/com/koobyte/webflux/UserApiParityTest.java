@@ -0,0 +1,221 @@
+package com.koobyte.webflux;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.koobyte.entity.User;
+import com.koobyte.service.UserBatchLoader;
+import com.koobyte.service.UserCache;
+import com.koobyte.service.UserChangeFeed;
+import com.koobyte.service.UserGroupCommitter;
+import com.koobyte.service.UserService;
+import com.koobyte.web.UserCrudController;
+import com.koobyte.web.UserHandler;
+import com.koobyte.web.UserRouter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 注解式（{@link UserCrudController}）和函数式（{@link UserRouter}）的/user接口返回相同的结果：分别启动两个应用，
+ * 真实的{@link UserService}后面是{@link InMemoryUserDao}，初始数据相同，同样的请求按同样的顺序发给两个应用，
+ * 比较状态码、Content-Type和响应体。错误响应体中的timestamp和requestId每次都不同，比较前去掉。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserApiParityTest {
+	//~ Static fields/constants/initializer
+
+	static final ObjectMapper MAPPER = new ObjectMapper();
+
+	static ConfigurableApplicationContext annotated;
+	static ConfigurableApplicationContext functional;
+
+	//~ Instance fields
+
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@BeforeAll
+	static void start() {
+		annotated = start("annotated");
+		functional = start("functional");
+	}
+
+	@AfterAll
+	static void stop() {
+		annotated.close();
+		functional.close();
+	}
+
+	@Test
+	public void testFind() {
+		same(client -> client.get().uri("/user/1"));
+		same(client -> client.get().uri("/user/999"));
+		same(client -> client.get().uri("/user/abc"));
+		same(client -> client.get().uri("/user/2?fields=name,id"));
+		same(client -> client.get().uri("/user/2?fields=password"));
+		same(client -> client.get().uri("/user/name?name=user3"));
+		same(client -> client.get().uri("/user/name?name=USER3&fields=id,email"));
+	}
+
+	@Test
+	public void testFindAll() {
+		same(client -> client.get().uri("/user/all"));
+		same(client -> client.get().uri("/user/all?fields=age"));
+		same(client -> client.get().uri("/user/all").accept(MediaType.APPLICATION_NDJSON));
+		same(client -> client.get().uri("/user/stream/all").accept(MediaType.TEXT_EVENT_STREAM));
+		same(client -> client.get().uri("/user/stream/all").accept(MediaType.TEXT_EVENT_STREAM)
+				.header("Last-Event-ID", "bm90LWEtY3Vyc29y"));
+	}
+
+	@Test
+	public void testPage() {
+		same(client -> client.get().uri("/user/page?limit=3"));
+		String next = body(annotated, "/user/page?limit=3").path("next").asText();
+		same(client -> client.get().uri("/user/page?limit=3&after={next}", next));
+		same(client -> client.get().uri("/user/page?limit=0"));
+		same(client -> client.get().uri("/user/page?limit=many"));
+		same(client -> client.get().uri("/user/page?after=%%%"));
+	}
+
+	@Test
+	public void testStats() {
+		same(client -> client.get().uri("/user/stats/age?width=20"));
+		same(client -> client.get().uri("/user/stats/age?width=0"));
+		same(client -> client.get().uri("/user/stats/domain?limit=2"));
+		same(client -> client.get().uri("/user/stats/domain?limit=5000"));
+	}
+
+	@Test
+	public void testWrite() {
+		same(client -> client.post().uri("/user").bodyValue(user(null, "new", 41, "new@c.com")));
+		same(client -> client.post().uri("/user").contentType(MediaType.APPLICATION_JSON));
+		same(client -> client.post().uri("/user/bulk").bodyValue(Arrays.asList(user(null, "bulk1", 1, null),
+				user(null, "bulk2", 2, "bulk2@c.com"))));
+		same(client -> client.post().uri("/user/bulk").contentType(MediaType.APPLICATION_NDJSON)
+				.bodyValue("{\"name\":\"nd1\"}\n{\"name\":\"nd2\",\"age\":3}\n"));
+		same(client -> client.put().uri("/user").bodyValue(user(4L, "renamed", 44, "renamed@b.com")));
+		same(client -> client.put().uri("/user").bodyValue(user(999L, "missing", 1, null)));
+		same(client -> client.put().uri("/user").contentType(MediaType.APPLICATION_JSON));
+		same(client -> client.get().uri("/user/4"));
+		same(client -> client.delete().uri("/user/5"));
+		same(client -> client.delete().uri("/user/5"));
+		same(client -> client.get().uri("/user/5"));
+		same(client -> client.get().uri("/user/all"));
+	}
+
+	// 同样的请求发给两个应用，比较结果
+	private static void same(Function<WebTestClient, WebTestClient.RequestHeadersSpec<?>> request) {
+		EntityExchangeResult<byte[]> expected = exchange(annotated, request);
+		EntityExchangeResult<byte[]> actual = exchange(functional, request);
+		String description = expected.getMethod() + " " + expected.getUrl().getRawPath()
+				+ (expected.getUrl().getRawQuery() == null ? "" : "?" + expected.getUrl().getRawQuery());
+		assertEquals(expected.getStatus(), actual.getStatus(), description);
+		assertEquals(expected.getResponseHeaders().getContentType(), actual.getResponseHeaders().getContentType(), description);
+		assertEquals(normalize(expected), normalize(actual), description);
+	}
+
+	private static EntityExchangeResult<byte[]> exchange(ConfigurableApplicationContext app,
+			Function<WebTestClient, WebTestClient.RequestHeadersSpec<?>> request) {
+		return request.apply(client(app)).exchange().expectBody().returnResult();
+	}
+
+	// JSON按内容比较，去掉每次都不同的字段；NDJSON、SSE等其他格式按文本比较
+	private static String normalize(EntityExchangeResult<byte[]> result) {
+		byte[] body = result.getResponseBody();
+		if (body == null) {
+			return "";
+		}
+		String text = new String(body, StandardCharsets.UTF_8);
+		MediaType contentType = result.getResponseHeaders().getContentType();
+		if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+			return text;
+		}
+		try {
+			JsonNode json = MAPPER.readTree(text);
+			if (json instanceof ObjectNode) {
+				((ObjectNode) json).remove(Arrays.asList("timestamp", "requestId"));
+			}
+			return json.toString();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static JsonNode body(ConfigurableApplicationContext app, String uri) {
+		try {
+			return MAPPER.readTree(client(app).get().uri(uri).exchange().expectBody().returnResult().getResponseBody());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static WebTestClient client(ConfigurableApplicationContext app) {
+		return WebTestClient.bindToServer()
+				.baseUrl("http://localhost:" + app.getEnvironment().getProperty("local.server.port"))
+				.responseTimeout(Duration.ofSeconds(10))
+				.build();
+	}
+
+	private static ConfigurableApplicationContext start(String style) {
+		return new SpringApplicationBuilder(ParityApplication.class)
+				.run("--server.port=0", "--user.api.style=" + style, "--streaming.heartbeat=0",
+						"--logging.level.root=warn");
+	}
+
+	private static User user(Long id, String name, Integer age, String email) {
+		User user = new User();
+		user.setId(id);
+		user.setName(name);
+		user.setAge(age);
+		user.setEmail(email);
+		return user;
+	}
+
+	// 只包含/user接口和服务层的应用，两种方式按user.api.style生效其中一种，每个应用有自己的数据；
+	// 不标注@SpringBootConfiguration，其他@SpringBootTest在这个包中查找配置时不会找到它
+	@Configuration(proxyBeanMethods = false)
+	@EnableAutoConfiguration(exclude = {R2dbcAutoConfiguration.class, R2dbcDataAutoConfiguration.class,
+			R2dbcRepositoriesAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+	@Import({UserCrudController.class, UserRouter.class, UserHandler.class, UserService.class, UserCache.class,
+			UserBatchLoader.class, UserGroupCommitter.class, UserChangeFeed.class})
+	static class ParityApplication {
+		@Bean
+		public InMemoryUserDao userDao() {
+			InMemoryUserDao userDao = new InMemoryUserDao();
+			String[] domains = {"a.com", "B.com", "b.com", "c.com"};
+			for (int i = 1; i <= 12; i++) {
+				userDao.save(user(null, "user" + i, i % 3 == 0 ? null : 10 + i * 3, "user" + i + "@" + domains[i % 4])).block();
+			}
+			return userDao;
+		}
+	}
+}
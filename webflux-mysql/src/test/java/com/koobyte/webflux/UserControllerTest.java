@@ -5,8 +5,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koobyte.entity.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.annotation.Commit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
 /**
  * Created by sun on 2021/6/28.
  *
@@ -46,6 +53,20 @@ public class UserControllerTest {
 		System.out.println(body);
 	}
 
+	@Test
+	public void testAddAll() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			User user = new User();
+			user.setName("用户" + i);
+			user.setAge(20 + i % 50);
+			users.add(user);
+		}
+		// 按行返回生成的id
+		String body = restTemplate.postForEntity(URL + "/bulk", users, String.class).getBody();
+		System.out.println(body);
+	}
+
 	@Test
 	public void testUpdate() {
 		User user = new User();
@@ -95,4 +116,66 @@ public class UserControllerTest {
 		String body = restTemplate.getForEntity(URL + "/stream/all", String.class).getBody();
 		System.out.println(body);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testGetPage() throws JsonProcessingException {
+		String body = restTemplate.getForEntity(URL + "/page?limit=2", String.class).getBody();
+		System.out.println(body);
+		// 使用返回的next继续查询下一页
+		String next = mapper.readTree(body).path("next").asText(null);
+		if (next != null) {
+			System.out.println(restTemplate.getForEntity(URL + "/page?limit=2&after=" + next, String.class).getBody());
+		}
+	}
+
+	@Test
+	public void testGetStreamAllResume() {
+		// 模拟断线重连，从第一条数据之后继续推送
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Last-Event-ID", Base64.getUrlEncoder().withoutPadding().encodeToString("1".getBytes()));
+		String body = restTemplate.exchange(URL + "/stream/all", HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testCacheStats() {
+		// 连续查询同一个id，第二次命中缓存
+		restTemplate.getForObject(URL + "/" + 6, User.class);
+		restTemplate.getForObject(URL + "/" + 6, User.class);
+		String body = restTemplate.getForEntity("http://localhost:8080/stats/user-cache", String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testPoolStats() {
+		String body = restTemplate.getForEntity("http://localhost:8080/stats/pool", String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testSlowQueries() {
+		// 最近的慢查询和执行计划，fullScan为true表示全表扫描
+		String body = restTemplate.getForEntity("http://localhost:8080/stats/slow-queries", String.class).getBody();
+		System.out.println(body);
+	}
+
+	@Test
+	public void testGetFields() {
+		// 只返回id和name
+		System.out.println(restTemplate.getForEntity(URL + "/all?fields=id,name", String.class).getBody());
+		System.out.println(restTemplate.getForEntity(URL + "/1?fields=name", String.class).getBody());
+	}
+
+	@Test
+	public void testStats() {
+		System.out.println(restTemplate.getForEntity(URL + "/stats/age?width=10", String.class).getBody());
+		System.out.println(restTemplate.getForEntity(URL + "/stats/domain", String.class).getBody());
+	}
+
+	@Test
+	public void testMetrics() {
+		// 按路由的请求耗时、正在处理的请求数和Repository方法耗时，Prometheus文本格式
+		String body = restTemplate.getForEntity("http://localhost:8080/actuator/prometheus", String.class).getBody();
+		System.out.println(body);
+	}
+}
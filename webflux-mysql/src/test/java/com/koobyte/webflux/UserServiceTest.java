@@ -0,0 +1,115 @@
+package com.koobyte.webflux;
+
+import com.koobyte.dao.UserDao;
+import com.koobyte.entity.User;
+import com.koobyte.service.UserCache;
+import com.koobyte.service.UserChangeFeed;
+import com.koobyte.service.UserGroupCommitter;
+import com.koobyte.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 不需要数据库：写入失败或被取消时UPDATE、DELETE可能已经执行，缓存中的旧数据要删除，下次查询重新加载。
+ * <p>
+ * Created by sun on 2026/10/18.
+ *
+ * @author sunfuchang03@126.com
+ * @since 1.0
+ */
+public class UserServiceTest {
+	//~ Static fields/constants/initializer
+
+
+	//~ Instance fields
+
+	UserDao userDao = mock(UserDao.class);
+	UserCache userCache = new UserCache();
+	UserService userService = new UserService();
+
+	//~ Constructors
+
+
+	//~ Methods
+
+	@BeforeEach
+	public void init() {
+		ReflectionTestUtils.setField(userCache, "enabled", true);
+		ReflectionTestUtils.setField(userCache, "maximumSize", 100L);
+		ReflectionTestUtils.setField(userCache, "expireAfterWrite", Duration.ofMinutes(1));
+		userCache.init();
+		ReflectionTestUtils.setField(userService, "userDao", userDao);
+		ReflectionTestUtils.setField(userService, "userCache", userCache);
+		ReflectionTestUtils.setField(userService, "userGroupCommitter", mock(UserGroupCommitter.class));
+		ReflectionTestUtils.setField(userService, "userChangeFeed", mock(UserChangeFeed.class));
+		userCache.put(user("cached"));
+	}
+
+	@Test
+	public void testUpdateErrorInvalidates() {
+		when(userDao.updateById(anyLong(), any(), any(), any()))
+				.thenReturn(Mono.error(new TransientDataAccessResourceException("Connection closed")));
+		StepVerifier.create(userService.update(user("updated")))
+				.verifyError(TransientDataAccessResourceException.class);
+		assertEquals("loaded", cached());
+	}
+
+	@Test
+	public void testUpdateCancelInvalidates() {
+		when(userDao.updateById(anyLong(), any(), any(), any())).thenReturn(Mono.never());
+		StepVerifier.create(userService.update(user("updated")))
+				.thenCancel()
+				.verify();
+		assertEquals("loaded", cached());
+	}
+
+	@Test
+	public void testSaveWithIdErrorInvalidates() {
+		when(userDao.save(any(User.class)))
+				.thenReturn(Mono.error(new TransientDataAccessResourceException("Connection closed")));
+		StepVerifier.create(userService.add(user("updated")))
+				.verifyError(TransientDataAccessResourceException.class);
+		assertEquals("loaded", cached());
+	}
+
+	@Test
+	public void testDeleteErrorInvalidates() {
+		when(userDao.removeById(1L)).thenReturn(Mono.error(new TransientDataAccessResourceException("Connection closed")));
+		StepVerifier.create(userService.delete(1L))
+				.verifyError(TransientDataAccessResourceException.class);
+		assertEquals("loaded", cached());
+	}
+
+	@Test
+	public void testUpdateSuccessKeepsNewData() {
+		when(userDao.updateById(anyLong(), any(), any(), any())).thenReturn(Mono.just(1));
+		StepVerifier.create(userService.update(user("updated")))
+				.expectNextCount(1)
+				.verifyComplete();
+		assertEquals("updated", cached());
+	}
+
+	// 缓存中id为1的用户名，未命中时加载的是loaded
+	private String cached() {
+		return userCache.get(1L, id -> Mono.just(user("loaded"))).block(Duration.ofSeconds(5)).getName();
+	}
+
+	private static User user(String name) {
+		User user = new User();
+		user.setId(1L);
+		user.setName(name);
+		return user;
+	}
+}